@@ -0,0 +1,246 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * snapshot storing the values in two primitive columns. The gaps are marked
+ * in a bitmap, so the renderer can skip to the next one.
+ *
+ * Appending is copy-on-write: the columns have spare capacity, and the
+ * snapshot that owns the end of the columns appends in place. The older
+ * snapshots only see their own range of the columns, so they are not
+ * affected. Appending to any other snapshot copies the values.
+ */
+public class ArraySeriesSnapshot extends SeriesSnapshot {
+	private static final int MIN_CAPACITY = 16;
+
+	public static final ArraySeriesSnapshot EMPTY = new ArraySeriesSnapshot(
+			new Columns(new double[0], new double[0], 0), 0, 0);
+
+	/**
+	 * storage shared by all snapshots derived from each other
+	 */
+	static final class Columns {
+		final double[] x;
+		final double[] y;
+		// bit per slot, set for gaps. Only the owner of a slot writes its bit.
+		final long[] gaps;
+		// number of slots of the columns that are in use
+		final AtomicInteger used;
+
+		Columns(double[] x, double[] y, int used) {
+			this.x = x;
+			this.y = y;
+			this.gaps = new long[(x.length + 63) >> 6];
+			this.used = new AtomicInteger(used);
+		}
+
+		void markGaps(int from, int to) {
+			for (int i = from; i < to; i++) {
+				if (Double.isNaN(y[i])) {
+					setGap(gaps, i);
+				}
+			}
+		}
+	}
+
+	private final Columns columns;
+	private final int offset;
+	private final int size;
+
+	ArraySeriesSnapshot(Columns columns, int offset, int size) {
+		this.columns = columns;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	/**
+	 * creates a snapshot of the columns. The arrays are used directly and
+	 * must not be changed afterwards.
+	 *
+	 * @param x
+	 *            x values, sorted
+	 * @param y
+	 *            y values
+	 */
+	public static ArraySeriesSnapshot wrap(double[] x, double[] y) {
+		if (x.length != y.length) {
+			throw new IllegalArgumentException(
+					"x and y must have the same length"); //NO I18N
+		}
+		Columns columns = new Columns(x, y, x.length);
+		columns.markGaps(0, x.length);
+		return new ArraySeriesSnapshot(columns, 0, x.length);
+	}
+
+	/**
+	 * creates a snapshot with a copy of the values of another snapshot
+	 */
+	public static ArraySeriesSnapshot copyOf(SeriesSnapshot data) {
+		int n = data.size();
+		double[] x = new double[Math.max(n, MIN_CAPACITY)];
+		double[] y = new double[x.length];
+		data.putColumns(DoubleBuffer.wrap(x), DoubleBuffer.wrap(y));
+		Columns columns = new Columns(x, y, n);
+		columns.markGaps(0, n);
+		return new ArraySeriesSnapshot(columns, 0, n);
+	}
+
+	/**
+	 * creates a snapshot with a copy of the values
+	 */
+	public static ArraySeriesSnapshot copyOf(GraphViewDataInterface[] values) {
+		int n = values.length;
+		double[] x = new double[Math.max(n, MIN_CAPACITY)];
+		double[] y = new double[x.length];
+		for (int i = 0; i < n; i++) {
+			x[i] = values[i].getX();
+			y[i] = values[i].getY();
+		}
+		Columns columns = new Columns(x, y, n);
+		columns.markGaps(0, n);
+		return new ArraySeriesSnapshot(columns, 0, n);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public long getRetainedBytes() {
+		// the whole columns, they are shared with the other snapshots
+		return 16L * columns.x.length + 8L * columns.gaps.length;
+	}
+
+	@Override
+	public double getX(int index) {
+		return columns.x[offset + index];
+	}
+
+	@Override
+	public double getY(int index) {
+		return columns.y[offset + index];
+	}
+
+	@Override
+	public ArraySeriesSnapshot append(double x, double y) {
+		int end = offset + size;
+		if (end < columns.x.length
+				&& columns.used.compareAndSet(end, end + 1)) {
+			// this snapshot owns the end of the columns, the slot is free
+			columns.x[end] = x;
+			columns.y[end] = y;
+			columns.markGaps(end, end + 1);
+			return appended(columns, offset, size + 1);
+		}
+		Columns copy = copyColumns(size + 1);
+		copy.x[size] = x;
+		copy.y[size] = y;
+		copy.markGaps(size, size + 1);
+		return appended(copy, 0, size + 1);
+	}
+
+	@Override
+	public ArraySeriesSnapshot appendAll(double[] x, double[] y, int offset,
+			int count) {
+		int end = this.offset + size;
+		Columns target;
+		int targetOffset;
+		if (end + count <= columns.x.length
+				&& columns.used.compareAndSet(end, end + count)) {
+			target = columns;
+			targetOffset = this.offset;
+		} else {
+			target = copyColumns(size + count);
+			targetOffset = 0;
+			end = size;
+		}
+		System.arraycopy(x, offset, target.x, end, count);
+		System.arraycopy(y, offset, target.y, end, count);
+		target.markGaps(end, end + count);
+		return appended(target, targetOffset, size + count);
+	}
+
+	private ArraySeriesSnapshot appended(Columns columns, int offset, int size) {
+		ArraySeriesSnapshot next = new ArraySeriesSnapshot(columns, offset,
+				size);
+		next.inheritBounds(this);
+		return next;
+	}
+
+	@Override
+	public ArraySeriesSnapshot removeFirst(int count) {
+		count = Math.min(count, size);
+		ArraySeriesSnapshot next = new ArraySeriesSnapshot(columns, offset
+				+ count, size - count);
+		next.inheritStatistics(this, count);
+		return next;
+	}
+
+	@Override
+	void putColumns(DoubleBuffer x, DoubleBuffer y) {
+		x.put(columns.x, offset, size);
+		y.put(columns.y, offset, size);
+	}
+
+	@Override
+	void project(int from, int to, double minX, double scaleX, float offsetX,
+			double minY, double scaleY, float offsetY, float[] out, int outPos) {
+		ColumnKernels.project(columns.x, columns.y, offset + from, offset + to,
+				minX, scaleX, offsetX, minY, scaleY, offsetY, out, outPos);
+	}
+
+	@Override
+	RangeBounds computeBounds(int from, int to) {
+		return ColumnKernels.bounds(columns.y, offset, from, to);
+	}
+
+	@Override
+	public int nextGap(int from, int to) {
+		return nextGap(columns.gaps, offset + from, offset + to) - offset;
+	}
+
+	/**
+	 * copies the values to new columns with room for at least minSize
+	 * values. The dropped values at the beginning are not copied.
+	 */
+	Columns copyColumns(int minSize) {
+		int capacity = Math.max(MIN_CAPACITY, Math.max(minSize, size
+				+ (size >> 1)));
+		double[] x = new double[capacity];
+		double[] y = new double[capacity];
+		System.arraycopy(columns.x, offset, x, 0, size);
+		System.arraycopy(columns.y, offset, y, 0, size);
+		Columns copy = new Columns(x, y, minSize);
+		int end = offset + size;
+		for (int i = nextGap(columns.gaps, offset, end); i < end; i = nextGap(
+				columns.gaps, i + 1, end)) {
+			setGap(copy.gaps, i - offset);
+		}
+		return copy;
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+
+import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
+
+/**
+ * Bar Graph View. This draws a bar chart.
+ *
+ * All bars of a series are drawn with one drawLines call, a bar is a line as
+ * wide as the bar. If there are more values than pixels, the values are
+ * binned per pixel column: the bar of a column reaches from the baseline to
+ * the value farthest from it, on both sides of the baseline. Gaps get no
+ * bar.
+ */
+public class BarGraphView extends GraphView {
+	// space between two bars, relative to the bar width
+	private static final float BAR_SPACING = 0.2f;
+
+	private final Paint barPaint = new Paint();
+	// reused buffers: projected values and the bar lines
+	private float[] points = new float[64];
+	private float[] lines = new float[64];
+
+	public BarGraphView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		barPaint.setStrokeCap(Paint.Cap.BUTT);
+	}
+
+	public BarGraphView(Context context, String title) {
+		super(context, title);
+		barPaint.setStrokeCap(Paint.Cap.BUTT);
+	}
+
+	@Override
+	public void drawSeries(Canvas canvas, GraphViewDataInterface[] values, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
+		drawSeries(canvas, new ObjectArraySnapshot(values), 0, values.length, graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, style);
+	}
+
+	@Override
+	protected void drawSeries(Canvas canvas, SeriesSnapshot data, int from, int to, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
+		if (points.length < (to - from) * 2) {
+			points = new float[(to - from) * 2];
+		}
+		int n = data.projectValues(from, to, minX, graphwidth / diffX, horstart + 1, minY, -graphheight / diffY, border + graphheight, points, 0);
+		if (n == 0) {
+			return;
+		}
+		// y of the value 0, inside the graph
+		float baseline = (float) ((0 - minY) * -graphheight / diffY) + border + graphheight;
+		baseline = Math.max(border, Math.min(border + graphheight, baseline));
+
+		int count;
+		float barWidth;
+		if (n <= graphwidth / 2) {
+			// few values: one bar per value, as wide as the space allows
+			barWidth = Math.max(1, graphwidth / n * (1 - BAR_SPACING));
+			count = addBars(n, baseline);
+		} else {
+			// many values: one bar per pixel column
+			barWidth = 1;
+			count = addColumns(n, baseline);
+		}
+
+		barPaint.setColor(style.color);
+		barPaint.setAntiAlias(getRenderQuality() == RenderQuality.FULL);
+		barPaint.setStrokeWidth(barWidth);
+		canvas.drawLines(lines, 0, count, barPaint);
+	}
+
+	/**
+	 * @return number of floats written to lines, a bar for each value
+	 */
+	private int addBars(int n, float baseline) {
+		ensureLines(n);
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			lines[count++] = points[2 * i];
+			lines[count++] = baseline;
+			lines[count++] = points[2 * i];
+			lines[count++] = points[2 * i + 1];
+		}
+		return count;
+	}
+
+	/**
+	 * bins the values into pixel columns. The values are sorted by x, so a
+	 * column is a run of consecutive values.
+	 *
+	 * @return number of floats written to lines
+	 */
+	private int addColumns(int n, float baseline) {
+		// at most one bar per column between the first and the last value
+		ensureLines(Math.min(n, (int) points[2 * n - 2] - (int) points[0] + 1));
+		int count = 0;
+		int i = 0;
+		while (i < n) {
+			int column = (int) points[2 * i];
+			float top = baseline;
+			float bottom = baseline;
+			for (; i < n && (int) points[2 * i] == column; i++) {
+				float y = points[2 * i + 1];
+				if (y < top) {
+					top = y;
+				}
+				if (y > bottom) {
+					bottom = y;
+				}
+			}
+			lines[count++] = column + 0.5f;
+			lines[count++] = bottom;
+			lines[count++] = column + 0.5f;
+			lines[count++] = top;
+		}
+		return count;
+	}
+
+	@Override
+	protected long getCacheBytes() {
+		return 4L * points.length + 4L * lines.length;
+	}
+
+	private void ensureLines(int bars) {
+		if (lines.length < bars * 4) {
+			lines = new float[bars * 4];
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import com.jjoe64.graphview.SeriesSnapshot.RangeBounds;
+
+/**
+ * bulk loops over the primitive columns of the snapshots: projecting the
+ * values to screen coordinates and scanning the extrema. They replace one
+ * virtual getX/getY call per value by plain array loops without branches the
+ * compiler can't remove, which the JIT and ART compile to tight (on some
+ * CPUs vectorized) code.
+ *
+ * The projection of a value is x = (float) ((vx - minX) * scaleX) + offsetX,
+ * y alike, written to out as x0, y0, x1, y1, ...
+ */
+final class ColumnKernels {
+	private ColumnKernels() {
+	}
+
+	/**
+	 * projects the values from - to of double columns
+	 */
+	static void project(double[] x, double[] y, int from, int to,
+			double minX, double scaleX, float offsetX, double minY,
+			double scaleY, float offsetY, float[] out, int outPos) {
+		int o = outPos;
+		for (int i = from; i < to; i++) {
+			out[o] = (float) ((x[i] - minX) * scaleX) + offsetX;
+			out[o + 1] = (float) ((y[i] - minY) * scaleY) + offsetY;
+			o += 2;
+		}
+	}
+
+	/**
+	 * projects the values from - to of compact columns, x is relative to
+	 * baseX
+	 */
+	static void project(long baseX, int[] x, float[] y, int from, int to,
+			double minX, double scaleX, float offsetX, double minY,
+			double scaleY, float offsetY, float[] out, int outPos) {
+		// baseX - minX is exact enough, the offsets stay small
+		double shiftX = baseX - minX;
+		int o = outPos;
+		for (int i = from; i < to; i++) {
+			out[o] = (float) ((x[i] + shiftX) * scaleX) + offsetX;
+			out[o + 1] = (float) ((y[i] - minY) * scaleY) + offsetY;
+			o += 2;
+		}
+	}
+
+	/**
+	 * @return the smallest and largest value of from - to, NaN (gaps) is
+	 *         skipped. Four independent accumulators, so the comparisons
+	 *         don't wait for each other.
+	 */
+	static RangeBounds bounds(double[] y, int offset, int from, int to) {
+		double min0 = Double.POSITIVE_INFINITY;
+		double min1 = Double.POSITIVE_INFINITY;
+		double min2 = Double.POSITIVE_INFINITY;
+		double min3 = Double.POSITIVE_INFINITY;
+		double max0 = Double.NEGATIVE_INFINITY;
+		double max1 = Double.NEGATIVE_INFINITY;
+		double max2 = Double.NEGATIVE_INFINITY;
+		double max3 = Double.NEGATIVE_INFINITY;
+		int i = offset + from;
+		int end = offset + to;
+		for (; i + 3 < end; i += 4) {
+			double a = y[i];
+			double b = y[i + 1];
+			double c = y[i + 2];
+			double d = y[i + 3];
+			// comparisons with NaN are false, so gaps are skipped
+			min0 = a < min0 ? a : min0;
+			min1 = b < min1 ? b : min1;
+			min2 = c < min2 ? c : min2;
+			min3 = d < min3 ? d : min3;
+			max0 = a > max0 ? a : max0;
+			max1 = b > max1 ? b : max1;
+			max2 = c > max2 ? c : max2;
+			max3 = d > max3 ? d : max3;
+		}
+		for (; i < end; i++) {
+			double a = y[i];
+			min0 = a < min0 ? a : min0;
+			max0 = a > max0 ? a : max0;
+		}
+		return new RangeBounds(from, to, Math.min(Math.min(min0, min1),
+				Math.min(min2, min3)), Math.max(Math.max(max0, max1), Math.max(
+				max2, max3)));
+	}
+
+	/**
+	 * like {@link #bounds(double[], int, int, int)} for float columns
+	 */
+	static RangeBounds bounds(float[] y, int offset, int from, int to) {
+		float min0 = Float.POSITIVE_INFINITY;
+		float min1 = Float.POSITIVE_INFINITY;
+		float max0 = Float.NEGATIVE_INFINITY;
+		float max1 = Float.NEGATIVE_INFINITY;
+		int i = offset + from;
+		int end = offset + to;
+		for (; i + 1 < end; i += 2) {
+			float a = y[i];
+			float b = y[i + 1];
+			min0 = a < min0 ? a : min0;
+			min1 = b < min1 ? b : min1;
+			max0 = a > max0 ? a : max0;
+			max1 = b > max1 ? b : max1;
+		}
+		for (; i < end; i++) {
+			float a = y[i];
+			min0 = a < min0 ? a : min0;
+			max0 = a > max0 ? a : max0;
+		}
+		return new RangeBounds(from, to, Math.min(min0, min1), Math.max(max0,
+				max1));
+	}
+}
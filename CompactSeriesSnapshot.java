@@ -0,0 +1,290 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * snapshot with reduced precision for timestamped data: the x values are
+ * stored as int offsets to a long base timestamp, the y values as float. A
+ * value needs 8 bytes instead of the object and two doubles of a
+ * GraphViewData.
+ *
+ * The x values must be whole numbers within about 24 days (the int range in
+ * milliseconds) of each other. Appending works like
+ * {@link ArraySeriesSnapshot}.
+ *
+ * Use {@link #empty(long)} to build a compact series.
+ */
+public class CompactSeriesSnapshot extends SeriesSnapshot {
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * storage shared by all snapshots derived from each other
+	 */
+	static final class Columns {
+		final long baseX;
+		final int[] x;
+		final float[] y;
+		// bit per slot, set for gaps. Only the owner of a slot writes its bit.
+		final long[] gaps;
+		// number of slots of the columns that are in use
+		final AtomicInteger used;
+
+		Columns(long baseX, int[] x, float[] y, int used) {
+			this.baseX = baseX;
+			this.x = x;
+			this.y = y;
+			this.gaps = new long[(x.length + 63) >> 6];
+			this.used = new AtomicInteger(used);
+		}
+
+		void markGaps(int from, int to) {
+			for (int i = from; i < to; i++) {
+				if (Float.isNaN(y[i])) {
+					setGap(gaps, i);
+				}
+			}
+		}
+	}
+
+	private final Columns columns;
+	private final int offset;
+	private final int size;
+
+	private CompactSeriesSnapshot(Columns columns, int offset, int size) {
+		this.columns = columns;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	/**
+	 * @param baseX
+	 *            timestamp the x values are stored relative to, usually the
+	 *            first x value
+	 * @return an empty snapshot
+	 */
+	public static CompactSeriesSnapshot empty(long baseX) {
+		return new CompactSeriesSnapshot(new Columns(baseX, new int[0],
+				new float[0], 0), 0, 0);
+	}
+
+	/**
+	 * creates a snapshot of the columns. The arrays are used directly and
+	 * must not be changed afterwards.
+	 */
+	static CompactSeriesSnapshot wrap(long baseX, int[] x, float[] y) {
+		Columns columns = new Columns(baseX, x, y, x.length);
+		columns.markGaps(0, x.length);
+		return new CompactSeriesSnapshot(columns, 0, x.length);
+	}
+
+	long getBaseX() {
+		return columns.baseX;
+	}
+
+	/**
+	 * writes the x offsets to getBaseX() and the y values
+	 */
+	void putColumns(IntBuffer x, FloatBuffer y) {
+		x.put(columns.x, offset, size);
+		y.put(columns.y, offset, size);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public long getRetainedBytes() {
+		// the whole columns, they are shared with the other snapshots
+		return 8L * columns.x.length + 8L * columns.gaps.length;
+	}
+
+	@Override
+	public double getX(int index) {
+		return columns.baseX + columns.x[offset + index];
+	}
+
+	@Override
+	public double getY(int index) {
+		return columns.y[offset + index];
+	}
+
+	/**
+	 * @return the y value without widening it to double
+	 */
+	public float getFloatY(int index) {
+		return columns.y[offset + index];
+	}
+
+	@Override
+	public CompactSeriesSnapshot append(double x, double y) {
+		int end = offset + size;
+		long relX = (long) x - columns.baseX;
+		if (relX == (int) relX && end < columns.x.length
+				&& columns.used.compareAndSet(end, end + 1)) {
+			// this snapshot owns the end of the columns, the slot is free
+			columns.x[end] = (int) relX;
+			columns.y[end] = (float) y;
+			columns.markGaps(end, end + 1);
+			return appended(columns, offset, size + 1);
+		}
+		Columns copy = copyColumns(size + 1, x, x);
+		copy.x[size] = (int) ((long) x - copy.baseX);
+		copy.y[size] = (float) y;
+		copy.markGaps(size, size + 1);
+		return appended(copy, 0, size + 1);
+	}
+
+	@Override
+	public CompactSeriesSnapshot appendAll(double[] x, double[] y, int offset,
+			int count) {
+		if (count == 0) {
+			return this;
+		}
+		int end = this.offset + size;
+		Columns target = columns;
+		int targetOffset = this.offset;
+		long last = (long) x[offset + count - 1] - columns.baseX;
+		if (last != (int) last || end + count > columns.x.length
+				|| !columns.used.compareAndSet(end, end + count)) {
+			target = copyColumns(size + count, x[offset], x[offset + count
+					- 1]);
+			targetOffset = 0;
+			end = size;
+		}
+		for (int i = 0; i < count; i++) {
+			target.x[end + i] = (int) ((long) x[offset + i] - target.baseX);
+			target.y[end + i] = (float) y[offset + i];
+		}
+		target.markGaps(end, end + count);
+		return appended(target, targetOffset, size + count);
+	}
+
+	private CompactSeriesSnapshot appended(Columns columns, int offset,
+			int size) {
+		CompactSeriesSnapshot next = new CompactSeriesSnapshot(columns,
+				offset, size);
+		next.inheritBounds(this);
+		return next;
+	}
+
+	@Override
+	public CompactSeriesSnapshot removeFirst(int count) {
+		count = Math.min(count, size);
+		CompactSeriesSnapshot next = new CompactSeriesSnapshot(columns, offset
+				+ count, size - count);
+		next.inheritStatistics(this, count);
+		return next;
+	}
+
+	@Override
+	public int nextGap(int from, int to) {
+		return nextGap(columns.gaps, offset + from, offset + to) - offset;
+	}
+
+	/**
+	 * copies the values to new columns with room for at least minSize values.
+	 * If the last x value to append doesn't fit into the int offsets, the base
+	 * is moved to the first value, or to the first appended one if there are
+	 * no values yet.
+	 */
+	private Columns copyColumns(int minSize, double firstAppendX,
+			double lastAppendX) {
+		long baseX = columns.baseX;
+		long relX = (long) lastAppendX - baseX;
+		if (relX != (int) relX) {
+			baseX = size > 0 ? (long) getX(0) : (long) firstAppendX;
+			relX = (long) lastAppendX - baseX;
+		}
+		if (relX != (int) relX) {
+			throw new IllegalArgumentException(
+					"x values span more than the int range"); //NO I18N
+		}
+		int capacity = Math.max(MIN_CAPACITY, Math.max(minSize, size
+				+ (size >> 1)));
+		int[] x = new int[capacity];
+		float[] y = new float[capacity];
+		int shift = (int) (baseX - columns.baseX);
+		for (int i = 0; i < size; i++) {
+			x[i] = columns.x[offset + i] - shift;
+		}
+		System.arraycopy(columns.y, offset, y, 0, size);
+		Columns copy = new Columns(baseX, x, y, minSize);
+		int end = offset + size;
+		for (int i = nextGap(columns.gaps, offset, end); i < end; i = nextGap(
+				columns.gaps, i + 1, end)) {
+			setGap(copy.gaps, i - offset);
+		}
+		return copy;
+	}
+
+	@Override
+	public int lowerIndex(double x) {
+		double relX = x - columns.baseX;
+		int low = offset;
+		int high = offset + size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (columns.x[mid] < relX) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low - offset;
+	}
+
+	@Override
+	public int upperIndex(double x) {
+		double relX = x - columns.baseX;
+		int low = offset;
+		int high = offset + size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (columns.x[mid] <= relX) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low - offset;
+	}
+
+	@Override
+	void project(int from, int to, double minX, double scaleX, float offsetX,
+			double minY, double scaleY, float offsetY, float[] out, int outPos) {
+		ColumnKernels.project(columns.baseX, columns.x, columns.y, offset
+				+ from, offset + to, minX, scaleX, offsetX, minY, scaleY,
+				offsetY, out, outPos);
+	}
+
+	@Override
+	RangeBounds computeBounds(int from, int to) {
+		return ColumnKernels.bounds(columns.y, offset, from, to);
+	}
+}
@@ -0,0 +1,819 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * snapshot storing the values compressed in blocks of {@link #BLOCK_SIZE}
+ * values, like the Gorilla time series storage: the x values are encoded as
+ * delta-of-delta (if they are whole numbers, e.g. timestamps in
+ * milliseconds), the y values as XOR to the previous value. Regular interval
+ * telemetry usually needs only a few bits per value.
+ *
+ * Every block has a header with the first and last x value and the y bounds,
+ * so slicing the viewport and the y bounds only decode the blocks at the
+ * borders of the range. The latest values are kept uncompressed until their
+ * block is full.
+ *
+ * Use {@link #EMPTY} to build a compressed series.
+ */
+public class CompressedSeriesSnapshot extends SeriesSnapshot {
+	static final int BLOCK_SHIFT = 10;
+	public static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+	public static final CompressedSeriesSnapshot EMPTY = new CompressedSeriesSnapshot(
+			new Block[0], 0, Tail.SHARED, 0, null);
+
+	/**
+	 * a full, compressed block of values
+	 */
+	static final class Block {
+		final double firstX;
+		final double lastX;
+		final double minY;
+		final double maxY;
+		final boolean gaps;
+		final boolean deltaX;
+		final long[] bits;
+
+		private Block(double firstX, double lastX, double minY, double maxY,
+				boolean gaps, boolean deltaX, long[] bits) {
+			this.firstX = firstX;
+			this.lastX = lastX;
+			this.minY = minY;
+			this.maxY = maxY;
+			this.gaps = gaps;
+			this.deltaX = deltaX;
+			this.bits = bits;
+		}
+
+		static Block encode(double[] x, double[] y) {
+			boolean deltaX = true;
+			boolean gaps = false;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < BLOCK_SIZE; i++) {
+				if (x[i] != Math.rint(x[i]) || Math.abs(x[i]) > 1L << 52) {
+					deltaX = false;
+				}
+				if (y[i] < minY) {
+					minY = y[i];
+				}
+				if (y[i] > maxY) {
+					maxY = y[i];
+				}
+				if (Double.isNaN(y[i])) {
+					gaps = true;
+				}
+			}
+
+			BitWriter out = new BitWriter();
+			XorEncoder xEncoder = new XorEncoder(out, x[0]);
+			XorEncoder yEncoder = new XorEncoder(out, y[0]);
+			out.write(Double.doubleToRawLongBits(y[0]), 64);
+			long prevTs = (long) x[0];
+			long prevDelta = 0;
+			for (int i = 1; i < BLOCK_SIZE; i++) {
+				if (deltaX) {
+					long ts = (long) x[i];
+					long delta = ts - prevTs;
+					writeDeltaOfDelta(out, delta - prevDelta);
+					prevTs = ts;
+					prevDelta = delta;
+				} else {
+					xEncoder.write(x[i]);
+				}
+				yEncoder.write(y[i]);
+			}
+			return new Block(x[0], x[BLOCK_SIZE - 1], minY, maxY, gaps,
+					deltaX, out.toArray());
+		}
+
+		private static void writeDeltaOfDelta(BitWriter out, long dod) {
+			if (dod == 0) {
+				out.write(0, 1);
+			} else if (dod >= -63 && dod <= 64) {
+				out.write(2, 2);
+				out.write(dod + 63, 7);
+			} else if (dod >= -255 && dod <= 256) {
+				out.write(6, 3);
+				out.write(dod + 255, 9);
+			} else if (dod >= -2047 && dod <= 2048) {
+				out.write(14, 4);
+				out.write(dod + 2047, 12);
+			} else {
+				out.write(15, 4);
+				out.write(dod, 64);
+			}
+		}
+
+		private static long readDeltaOfDelta(BitReader in) {
+			if (in.read(1) == 0) {
+				return 0;
+			} else if (in.read(1) == 0) {
+				return in.read(7) - 63;
+			} else if (in.read(1) == 0) {
+				return in.read(9) - 255;
+			} else if (in.read(1) == 0) {
+				return in.read(12) - 2047;
+			}
+			return in.read(64);
+		}
+
+		/**
+		 * decodes the values into x and y
+		 */
+		void decode(double[] x, double[] y) {
+			BitReader in = new BitReader(bits);
+			XorDecoder xDecoder = new XorDecoder(in, firstX);
+			XorDecoder yDecoder = new XorDecoder(in,
+					Double.longBitsToDouble(in.read(64)));
+			x[0] = firstX;
+			y[0] = yDecoder.value();
+			long ts = (long) firstX;
+			long delta = 0;
+			for (int i = 1; i < BLOCK_SIZE; i++) {
+				if (deltaX) {
+					delta += readDeltaOfDelta(in);
+					ts += delta;
+					x[i] = ts;
+				} else {
+					x[i] = xDecoder.read();
+				}
+				y[i] = yDecoder.read();
+			}
+		}
+	}
+
+	/**
+	 * the decoded values of a block. The arrays are reused for another block
+	 * when the entry is evicted, so readers check the stamp, like a seqlock:
+	 * it is odd while the arrays are written and changes with every block.
+	 */
+	static final class Decoded {
+		final double[] x = new double[BLOCK_SIZE];
+		final double[] y = new double[BLOCK_SIZE];
+		final AtomicInteger stamp = new AtomicInteger();
+		volatile Block block;
+
+		/**
+		 * decodes the block into the arrays, unless another thread is
+		 * writing them
+		 *
+		 * @return false if the arrays are in use by another writer
+		 */
+		boolean fill(Block block) {
+			int s = stamp.get();
+			if ((s & 1) != 0 || !stamp.compareAndSet(s, s + 1)) {
+				return false;
+			}
+			this.block = null;
+			block.decode(x, y);
+			this.block = block;
+			stamp.set(s + 2);
+			return true;
+		}
+	}
+
+	/**
+	 * the last decoded blocks. They are shared by the snapshots appended to
+	 * each other, so that a new snapshot doesn't decode the blocks of the
+	 * viewport again. There are a few entries, so that the two borders of a
+	 * range or two graphs showing different ranges don't evict each other.
+	 * A miss decodes into the arrays of the evicted entry, so reading
+	 * through the blocks doesn't allocate once the entries exist.
+	 */
+	static final class DecodedBlocks {
+		static final int SIZE = 4;
+
+		private final AtomicReferenceArray<Decoded> entries = new AtomicReferenceArray<Decoded>(
+				SIZE);
+		// the entry replaced by the next miss, round robin
+		private final AtomicInteger next = new AtomicInteger();
+		// the entry of the last hit, checked first
+		private volatile Decoded last;
+
+		/**
+		 * @return the entry holding the block. Check its stamp before and
+		 *         after reading it, it may be reused for another block.
+		 */
+		private Decoded get(Block block) {
+			Decoded d = last;
+			if (d != null && d.block == block) {
+				return d;
+			}
+			for (int i = 0; i < SIZE; i++) {
+				d = entries.get(i);
+				if (d != null && d.block == block) {
+					last = d;
+					return d;
+				}
+			}
+			int i = next.getAndIncrement() & (SIZE - 1);
+			d = entries.get(i);
+			if (d == null) {
+				d = new Decoded();
+				d.fill(block);
+				entries.compareAndSet(i, null, d);
+			} else if (!d.fill(block)) {
+				// another thread decodes into the entry, don't wait for it
+				d = new Decoded();
+				d.fill(block);
+				return d;
+			}
+			last = d;
+			return d;
+		}
+
+		double getX(Block block, int i) {
+			while (true) {
+				Decoded d = get(block);
+				int s = d.stamp.get();
+				if ((s & 1) == 0 && d.block == block) {
+					double x = d.x[i];
+					if (d.stamp.get() == s) {
+						return x;
+					}
+				}
+			}
+		}
+
+		double getY(Block block, int i) {
+			while (true) {
+				Decoded d = get(block);
+				int s = d.stamp.get();
+				if ((s & 1) == 0 && d.block == block) {
+					double y = d.y[i];
+					if (d.stamp.get() == s) {
+						return y;
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return index of the first x value of the block that is greater
+		 *         than (upper) or not less than x
+		 */
+		int search(Block block, double x, boolean upper) {
+			while (true) {
+				Decoded d = get(block);
+				int s = d.stamp.get();
+				if ((s & 1) == 0 && d.block == block) {
+					int j = CompressedSeriesSnapshot.search(d.x, BLOCK_SIZE,
+							x, upper);
+					if (d.stamp.get() == s) {
+						return j;
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return number of decoded blocks
+		 */
+		int size() {
+			int n = 0;
+			for (int i = 0; i < SIZE; i++) {
+				if (entries.get(i) != null) {
+					n++;
+				}
+			}
+			return n;
+		}
+	}
+
+	/**
+	 * the uncompressed values of the block being filled. Shared by the
+	 * snapshots appended to each other like the columns of
+	 * {@link ArraySeriesSnapshot}.
+	 */
+	static final class Tail {
+		final double[] x = new double[BLOCK_SIZE];
+		final double[] y = new double[BLOCK_SIZE];
+		final AtomicInteger used = new AtomicInteger();
+
+		// never appended to in place, every snapshot appending to it copies
+		static final Tail SHARED = new Tail();
+		static {
+			SHARED.used.set(-1);
+		}
+
+		Tail copy(int size) {
+			Tail copy = new Tail();
+			System.arraycopy(x, 0, copy.x, 0, size);
+			System.arraycopy(y, 0, copy.y, 0, size);
+			return copy;
+		}
+	}
+
+	private static final class BitWriter {
+		private long[] words = new long[16];
+		private int bits;
+
+		/**
+		 * writes the n lower bits of value
+		 */
+		void write(long value, int n) {
+			if (n < 64) {
+				value &= (1L << n) - 1;
+			}
+			int word = bits >>> 6;
+			int free = 64 - (bits & 63);
+			if (word + 1 >= words.length) {
+				words = Arrays.copyOf(words, words.length * 2);
+			}
+			if (n <= free) {
+				words[word] |= value << (free - n);
+			} else {
+				int rest = n - free;
+				words[word] |= value >>> rest;
+				words[word + 1] |= value << (64 - rest);
+			}
+			bits += n;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(words, (bits + 63) >>> 6);
+		}
+	}
+
+	private static final class BitReader {
+		private final long[] words;
+		private int bits;
+
+		BitReader(long[] words) {
+			this.words = words;
+		}
+
+		long read(int n) {
+			int word = bits >>> 6;
+			int used = bits & 63;
+			int avail = 64 - used;
+			bits += n;
+			if (n <= avail) {
+				return (words[word] << used) >>> (64 - n);
+			}
+			int rest = n - avail;
+			long high = words[word] & ((1L << avail) - 1);
+			return (high << rest) | (words[word + 1] >>> (64 - rest));
+		}
+	}
+
+	private static final class XorEncoder {
+		private final BitWriter out;
+		private long prev;
+		private int prevLeading = -1;
+		private int prevTrailing;
+
+		XorEncoder(BitWriter out, double first) {
+			this.out = out;
+			this.prev = Double.doubleToRawLongBits(first);
+		}
+
+		void write(double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			long xor = prev ^ bits;
+			prev = bits;
+			if (xor == 0) {
+				out.write(0, 1);
+				return;
+			}
+			out.write(1, 1);
+			int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+			int trailing = Long.numberOfTrailingZeros(xor);
+			if (prevLeading >= 0 && leading >= prevLeading
+					&& trailing >= prevTrailing) {
+				// fits into the window of the previous value
+				out.write(0, 1);
+				out.write(xor >>> prevTrailing, 64 - prevLeading
+						- prevTrailing);
+			} else {
+				int meaningful = 64 - leading - trailing;
+				out.write(1, 1);
+				out.write(leading, 5);
+				out.write(meaningful == 64 ? 0 : meaningful, 6);
+				out.write(xor >>> trailing, meaningful);
+				prevLeading = leading;
+				prevTrailing = trailing;
+			}
+		}
+	}
+
+	private static final class XorDecoder {
+		private final BitReader in;
+		private long prev;
+		private int prevLeading;
+		private int prevTrailing;
+
+		XorDecoder(BitReader in, double first) {
+			this.in = in;
+			this.prev = Double.doubleToRawLongBits(first);
+		}
+
+		double value() {
+			return Double.longBitsToDouble(prev);
+		}
+
+		double read() {
+			if (in.read(1) != 0) {
+				if (in.read(1) == 0) {
+					prev ^= in.read(64 - prevLeading - prevTrailing) << prevTrailing;
+				} else {
+					prevLeading = (int) in.read(5);
+					int meaningful = (int) in.read(6);
+					if (meaningful == 0) {
+						meaningful = 64;
+					}
+					prevTrailing = 64 - prevLeading - meaningful;
+					prev ^= in.read(meaningful) << prevTrailing;
+				}
+			}
+			return Double.longBitsToDouble(prev);
+		}
+	}
+
+	private final Block[] blocks;
+	// number of values dropped from the first block
+	private final int offset;
+	private final Tail tail;
+	private final int tailSize;
+	private volatile DecodedBlocks decoded;
+
+	private CompressedSeriesSnapshot(Block[] blocks, int offset, Tail tail,
+			int tailSize, DecodedBlocks decoded) {
+		this.blocks = blocks;
+		this.offset = offset;
+		this.tail = tail;
+		this.tailSize = tailSize;
+		this.decoded = decoded;
+	}
+
+	/**
+	 * creates a compressed copy of a snapshot
+	 */
+	public static CompressedSeriesSnapshot copyOf(SeriesSnapshot data) {
+		CompressedSeriesSnapshot result = EMPTY;
+		double[] x = new double[BLOCK_SIZE];
+		double[] y = new double[BLOCK_SIZE];
+		for (int i = 0; i < data.size(); i += BLOCK_SIZE) {
+			int n = Math.min(BLOCK_SIZE, data.size() - i);
+			for (int j = 0; j < n; j++) {
+				x[j] = data.getX(i + j);
+				y[j] = data.getY(i + j);
+			}
+			result = result.appendAll(x, y, 0, n);
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of bytes {@link #encode(ByteBuffer)} writes
+	 */
+	int encodedSize() {
+		// offset, block count, tail size, padding
+		int size = 16;
+		for (Block block : blocks) {
+			// bounds, flags, word count, words
+			size += 40 + 8 * block.bits.length;
+		}
+		return size + 16 * tailSize;
+	}
+
+	/**
+	 * writes the blocks as they are and the tail, see {@link SnapshotCodec}
+	 */
+	void encode(ByteBuffer out) {
+		out.putInt(offset);
+		out.putInt(blocks.length);
+		out.putInt(tailSize);
+		out.putInt(0);
+		for (Block block : blocks) {
+			out.putDouble(block.firstX);
+			out.putDouble(block.lastX);
+			out.putDouble(block.minY);
+			out.putDouble(block.maxY);
+			out.putShort((short) ((block.gaps ? 1 : 0) | (block.deltaX ? 2 : 0)));
+			out.putShort((short) 0);
+			out.putInt(block.bits.length);
+			for (long word : block.bits) {
+				out.putLong(word);
+			}
+		}
+		for (int i = 0; i < tailSize; i++) {
+			out.putDouble(tail.x[i]);
+		}
+		for (int i = 0; i < tailSize; i++) {
+			out.putDouble(tail.y[i]);
+		}
+	}
+
+	/**
+	 * reads a snapshot written by {@link #encode(ByteBuffer)}, the blocks
+	 * are not decoded
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the data is truncated or inconsistent
+	 */
+	static CompressedSeriesSnapshot decode(ByteBuffer in) {
+		if (in.remaining() < 16) {
+			throw new IllegalArgumentException("truncated snapshot"); //NO I18N
+		}
+		int offset = in.getInt();
+		int blockCount = in.getInt();
+		int tailSize = in.getInt();
+		in.getInt();
+		if (blockCount < 0 || tailSize < 0 || tailSize > BLOCK_SIZE
+				|| offset < 0
+				|| offset > (long) blockCount * BLOCK_SIZE + tailSize) {
+			throw new IllegalArgumentException("corrupt snapshot"); //NO I18N
+		}
+		Block[] blocks = new Block[blockCount];
+		for (int b = 0; b < blockCount; b++) {
+			if (in.remaining() < 40) {
+				throw new IllegalArgumentException("truncated snapshot"); //NO I18N
+			}
+			double firstX = in.getDouble();
+			double lastX = in.getDouble();
+			double minY = in.getDouble();
+			double maxY = in.getDouble();
+			int flags = in.getShort();
+			in.getShort();
+			int words = in.getInt();
+			if (words < 0 || in.remaining() < 8L * words) {
+				throw new IllegalArgumentException("truncated snapshot"); //NO I18N
+			}
+			long[] bits = new long[words];
+			in.asLongBuffer().get(bits);
+			in.position(in.position() + 8 * words);
+			blocks[b] = new Block(firstX, lastX, minY, maxY, (flags & 1) != 0,
+					(flags & 2) != 0, bits);
+		}
+		if (in.remaining() < 16L * tailSize) {
+			throw new IllegalArgumentException("truncated snapshot"); //NO I18N
+		}
+		Tail tail = new Tail();
+		in.asDoubleBuffer().get(tail.x, 0, tailSize);
+		in.position(in.position() + 8 * tailSize);
+		in.asDoubleBuffer().get(tail.y, 0, tailSize);
+		in.position(in.position() + 8 * tailSize);
+		tail.used.set(tailSize);
+		return new CompressedSeriesSnapshot(blocks, offset, tail, tailSize,
+				null);
+	}
+
+	@Override
+	public int size() {
+		return (blocks.length << BLOCK_SHIFT) - offset + tailSize;
+	}
+
+	@Override
+	public long getRetainedBytes() {
+		// the fields of a block take about 64 bytes
+		long bytes = 16L * BLOCK_SIZE;
+		for (Block block : blocks) {
+			bytes += 64 + 8L * block.bits.length;
+		}
+		DecodedBlocks cache = decoded;
+		if (cache != null) {
+			bytes += 16L * BLOCK_SIZE * cache.size();
+		}
+		return bytes;
+	}
+
+	@Override
+	public double getX(int index) {
+		int i = index + offset;
+		int b = i >> BLOCK_SHIFT;
+		if (b < blocks.length) {
+			return decoded().getX(blocks[b], i & (BLOCK_SIZE - 1));
+		}
+		return tail.x[i - (blocks.length << BLOCK_SHIFT)];
+	}
+
+	@Override
+	public double getY(int index) {
+		int i = index + offset;
+		int b = i >> BLOCK_SHIFT;
+		if (b < blocks.length) {
+			return decoded().getY(blocks[b], i & (BLOCK_SIZE - 1));
+		}
+		return tail.y[i - (blocks.length << BLOCK_SHIFT)];
+	}
+
+	private DecodedBlocks decoded() {
+		DecodedBlocks cache = decoded;
+		if (cache == null) {
+			// the first snapshot of the data to decode a block, the ones
+			// appended to it later share the cache
+			cache = new DecodedBlocks();
+			decoded = cache;
+		}
+		return cache;
+	}
+
+	@Override
+	public CompressedSeriesSnapshot append(double x, double y) {
+		Block[] newBlocks = blocks;
+		Tail t = tail;
+		int size = tailSize;
+		if (size == BLOCK_SIZE) {
+			newBlocks = sealed(newBlocks, t);
+			t = new Tail();
+			size = 0;
+		}
+		if (!t.used.compareAndSet(size, size + 1)) {
+			t = t.copy(size);
+			t.used.set(size + 1);
+		}
+		t.x[size] = x;
+		t.y[size] = y;
+		return appended(newBlocks, t, size + 1);
+	}
+
+	@Override
+	public CompressedSeriesSnapshot appendAll(double[] x, double[] y,
+			int offset, int count) {
+		Block[] newBlocks = blocks;
+		Tail t = tail;
+		int size = tailSize;
+		int end = offset + count;
+		while (offset < end) {
+			if (size == BLOCK_SIZE) {
+				newBlocks = sealed(newBlocks, t);
+				t = new Tail();
+				size = 0;
+			}
+			int n = Math.min(BLOCK_SIZE - size, end - offset);
+			if (!t.used.compareAndSet(size, size + n)) {
+				t = t.copy(size);
+				t.used.set(size + n);
+			}
+			System.arraycopy(x, offset, t.x, size, n);
+			System.arraycopy(y, offset, t.y, size, n);
+			size += n;
+			offset += n;
+		}
+		return appended(newBlocks, t, size);
+	}
+
+	private static Block[] sealed(Block[] blocks, Tail full) {
+		Block[] result = Arrays.copyOf(blocks, blocks.length + 1);
+		result[blocks.length] = Block.encode(full.x, full.y);
+		return result;
+	}
+
+	private CompressedSeriesSnapshot appended(Block[] newBlocks, Tail t,
+			int size) {
+		CompressedSeriesSnapshot next = new CompressedSeriesSnapshot(
+				newBlocks, offset, t, size, decoded);
+		next.inheritBounds(this);
+		return next;
+	}
+
+	@Override
+	public CompressedSeriesSnapshot removeFirst(int count) {
+		count = Math.min(count, size());
+		int newOffset = offset + count;
+		int dropBlocks = Math.min(blocks.length, newOffset >> BLOCK_SHIFT);
+		Block[] newBlocks = dropBlocks == 0 ? blocks : Arrays.copyOfRange(
+				blocks, dropBlocks, blocks.length);
+		CompressedSeriesSnapshot next = new CompressedSeriesSnapshot(
+				newBlocks, newOffset - (dropBlocks << BLOCK_SHIFT), tail,
+				tailSize, decoded);
+		next.inheritStatistics(this, count);
+		return next;
+	}
+
+	@Override
+	public int lowerIndex(double x) {
+		int low = 0;
+		int high = blocks.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (blocks[mid].lastX < x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		int j = low < blocks.length ? decoded().search(blocks[low], x, false)
+				: search(tail.x, tailSize, x, false);
+		return Math.max(0, (low << BLOCK_SHIFT) + j - offset);
+	}
+
+	@Override
+	public int upperIndex(double x) {
+		int low = 0;
+		int high = blocks.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (blocks[mid].lastX <= x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		int j = low < blocks.length ? decoded().search(blocks[low], x, true)
+				: search(tail.x, tailSize, x, true);
+		return Math.max(0, (low << BLOCK_SHIFT) + j - offset);
+	}
+
+	/**
+	 * @return index of the first of the n values of xs that is greater than
+	 *         (upper) or not less than x
+	 */
+	static int search(double[] xs, int n, double x, boolean upper) {
+		int j = 0;
+		int h = n;
+		while (j < h) {
+			int mid = (j + h) >>> 1;
+			if (xs[mid] < x || upper && xs[mid] == x) {
+				j = mid + 1;
+			} else {
+				h = mid;
+			}
+		}
+		return j;
+	}
+
+	/**
+	 * skips the blocks without gaps
+	 */
+	@Override
+	public int nextGap(int from, int to) {
+		int i = from;
+		while (i < to) {
+			int b = (i + offset) >> BLOCK_SHIFT;
+			int end = b < blocks.length ? Math.min(to, ((b + 1) << BLOCK_SHIFT)
+					- offset) : to;
+			if (b < blocks.length && !blocks[b].gaps) {
+				i = end;
+				continue;
+			}
+			for (; i < end; i++) {
+				if (Double.isNaN(getY(i))) {
+					return i;
+				}
+			}
+		}
+		return to;
+	}
+
+	/**
+	 * uses the block headers for the blocks completely inside the range, only
+	 * the blocks at the borders are decoded.
+	 */
+	@Override
+	RangeBounds computeBounds(int from, int to) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		int i = from;
+		while (i < to) {
+			int b = (i + offset) >> BLOCK_SHIFT;
+			int blockStart = (b << BLOCK_SHIFT) - offset;
+			int blockEnd = blockStart + BLOCK_SIZE;
+			if (b < blocks.length && blockStart >= from && blockEnd <= to) {
+				min = Math.min(min, blocks[b].minY);
+				max = Math.max(max, blocks[b].maxY);
+				i = blockEnd;
+				continue;
+			}
+			int end = b < blocks.length ? Math.min(to, blockEnd) : to;
+			for (; i < end; i++) {
+				double y = getY(i);
+				if (y < min) {
+					min = y;
+				}
+				if (y > max) {
+					max = y;
+				}
+			}
+		}
+		return new RangeBounds(from, to, min, max);
+	}
+}
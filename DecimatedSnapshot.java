@@ -0,0 +1,239 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.util.Arrays;
+
+/**
+ * reduced copy of an x range of a snapshot for fast drawing: of the values
+ * of every column (an x range of the width of a pixel) only the first, the
+ * smallest, the largest and the last one are kept. The line looks the same
+ * at that resolution, but it has at most four values per pixel.
+ *
+ * The columns are aligned to x = 0, not to the viewport, and the copy covers
+ * the columns of a viewport to each side of the one it was built for. So the
+ * same reduced data can be drawn while the graph is panned, and appended
+ * values only reduce the last columns again, see
+ * {@link #update(SeriesSnapshot)}.
+ */
+final class DecimatedSnapshot extends SeriesSnapshot {
+	final SeriesSnapshot source;
+	final double columnWidth;
+	// the covered x range, at column boundaries
+	private final double fromX;
+	private final double toX;
+	private double[] x;
+	private double[] y;
+	private int size;
+
+	private DecimatedSnapshot(SeriesSnapshot source, double fromX,
+			double toX, double columnWidth, DecimatedSnapshot previous) {
+		this.source = source;
+		this.fromX = fromX;
+		this.toX = toX;
+		this.columnWidth = columnWidth;
+		int capacity = previous == null ? 256 : previous.x.length;
+		x = new double[capacity];
+		y = new double[capacity];
+		if (previous == null) {
+			decimate(source.lowerIndex(fromX), source.lowerIndex(toX));
+		} else {
+			update(previous);
+		}
+	}
+
+	/**
+	 * reduces the columns of the x range sliceFromX - sliceToX and of its
+	 * width to each side
+	 */
+	static DecimatedSnapshot build(SeriesSnapshot source, double sliceFromX,
+			double sliceToX, double columnWidth) {
+		double margin = sliceToX - sliceFromX;
+		return new DecimatedSnapshot(source, columnStart(sliceFromX - margin,
+				columnWidth), columnStart(sliceToX + margin, columnWidth)
+				+ columnWidth, columnWidth, null);
+	}
+
+	/**
+	 * reduces newer data of the source for the same x range. If the data was
+	 * created from the source by appending and removing values, only the
+	 * first and the last columns are reduced again.
+	 */
+	DecimatedSnapshot update(SeriesSnapshot data) {
+		return new DecimatedSnapshot(data, fromX, toX, columnWidth, data
+				.isSuccessorOf(source) ? this : null);
+	}
+
+	private static double columnStart(double vx, double columnWidth) {
+		return Math.floor(vx / columnWidth) * columnWidth;
+	}
+
+	/**
+	 * @return true if the copy holds the columns of the x range
+	 *         sliceFromX - sliceToX
+	 */
+	boolean covers(double sliceFromX, double sliceToX) {
+		return sliceFromX >= fromX && sliceToX < toX;
+	}
+
+	/**
+	 * @return index of the first value of the column of vx
+	 */
+	int sliceStart(double vx) {
+		return lowerIndex(columnStart(vx, columnWidth));
+	}
+
+	/**
+	 * @return index after the last value of the column of vx
+	 */
+	int sliceEnd(double vx) {
+		return lowerIndex(columnStart(vx, columnWidth) + columnWidth);
+	}
+
+	/**
+	 * takes over the columns of previous that neither lost nor gained values
+	 */
+	private void update(DecimatedSnapshot previous) {
+		// the values before the column of the first value were removed
+		double keepFrom = source.size() == 0 ? Double.POSITIVE_INFINITY
+				: columnStart(source.getX(0), columnWidth) + columnWidth;
+		// the values were appended to the column of the last value
+		int last = previous.source.size() - 1;
+		double keepTo = last < 0 ? Double.NEGATIVE_INFINITY : columnStart(
+				previous.source.getX(last), columnWidth);
+		int from = source.lowerIndex(fromX);
+		int to = source.lowerIndex(toX);
+		decimate(from, Math.max(from, Math.min(to, source
+				.lowerIndex(keepFrom))));
+		// the columns and their gaps are in x order
+		int i = previous.lowerIndex(Math.max(keepFrom, fromX));
+		int end = previous.lowerIndex(Math.min(keepTo, toX));
+		if (i < end && Double.isNaN(previous.y[i])
+				&& (size == 0 || Double.isNaN(y[size - 1]))) {
+			// nothing left to interrupt before the gap
+			i++;
+		}
+		for (; i < end; i++) {
+			put(previous.x[i], previous.y[i]);
+		}
+		decimate(Math.max(from, Math.min(to, source.lowerIndex(Math.max(
+				keepFrom, keepTo)))), to);
+	}
+
+	/**
+	 * reduces the values of the index range from - to, which starts and ends
+	 * at column boundaries
+	 */
+	private void decimate(int from, int to) {
+		int i = from;
+		while (i < to) {
+			int gap = source.nextGap(i, to);
+			while (i < gap) {
+				// one column
+				double column = Math.floor(source.getX(i) / columnWidth);
+				int first = i;
+				int min = i;
+				int max = i;
+				for (i++; i < gap
+						&& Math.floor(source.getX(i) / columnWidth) == column; i++) {
+					double v = source.getY(i);
+					if (v < source.getY(min)) {
+						min = i;
+					}
+					if (v > source.getY(max)) {
+						max = i;
+					}
+				}
+				int last = i - 1;
+				add(first);
+				if (min != first && min < max) {
+					add(min);
+				}
+				if (max != first && max != last) {
+					add(max);
+				}
+				if (min != first && min != last && min > max) {
+					add(min);
+				}
+				if (last != first) {
+					add(last);
+				}
+			}
+			if (i < to) {
+				// keep the gap
+				if (size > 0 && !Double.isNaN(y[size - 1])) {
+					put(source.getX(i), Double.NaN);
+				}
+				i++;
+			}
+		}
+	}
+
+	private void add(int index) {
+		put(source.getX(index), source.getY(index));
+	}
+
+	private void put(double vx, double vy) {
+		if (size == x.length) {
+			x = Arrays.copyOf(x, size * 2);
+			y = Arrays.copyOf(y, size * 2);
+		}
+		x[size] = vx;
+		y[size] = vy;
+		size++;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public long getRetainedBytes() {
+		return 16L * x.length;
+	}
+
+	@Override
+	public double getX(int index) {
+		return x[index];
+	}
+
+	@Override
+	public double getY(int index) {
+		return y[index];
+	}
+
+	/**
+	 * the reduced values become plain values of a copy, so that they can be
+	 * changed
+	 */
+	@Override
+	public SeriesSnapshot append(double x, double y) {
+		return ArraySeriesSnapshot.copyOf(this).append(x, y);
+	}
+
+	@Override
+	public SeriesSnapshot removeFirst(int count) {
+		return ArraySeriesSnapshot.copyOf(this).removeFirst(count);
+	}
+}
@@ -0,0 +1,316 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+/**
+ * the values of a slice counted per pixel and drawn as one bitmap through a
+ * color ramp. The counts are computed in one pass over the slice, split into
+ * chunks that are counted in parallel. They are kept as long as the slice and
+ * the projection stay the same; when only the colors change, the bitmap is
+ * colored again from the counts.
+ *
+ * The values are sorted by x, so a chunk only covers the band of pixel
+ * columns between its first and its last value. Each chunk counts into a
+ * grid of its band, and the bands of all chunks together are about as large
+ * as the area, however many chunks there are.
+ */
+final class DensityMap {
+	// below this number of values the counting isn't split
+	private static final int MIN_CHUNK = 32768;
+	// values projected at once by a chunk
+	private static final int BATCH = 4096;
+	// counts up to this have their ramp index in a table
+	private static final int LEVELS_TABLE_SIZE = 4096;
+
+	private static ExecutorService executor;
+
+	/**
+	 * counts the values from - to into the grid of its band of columns
+	 */
+	private final class Chunk implements Callable<Void> {
+		private final float[] buffer = new float[2 * BATCH];
+		int[] counts = new int[0];
+		int from;
+		int to;
+		// the columns bandStart - bandEnd (exclusive) of the values
+		int bandStart;
+		int bandEnd;
+
+		@Override
+		public Void call() {
+			int bandWidth = bandEnd - bandStart;
+			if (counts.length < bandWidth * height) {
+				counts = new int[bandWidth * height];
+			} else {
+				Arrays.fill(counts, 0, bandWidth * height, 0);
+			}
+			for (int start = from; start < to; start += BATCH) {
+				int n = data.projectValues(start, Math.min(to, start + BATCH),
+						minX, scaleX, offsetX, minY, scaleY, offsetY, buffer, 0);
+				for (int i = 0; i < 2 * n; i += 2) {
+					float x = buffer[i] - bandStart;
+					float y = buffer[i + 1];
+					if (x >= 0 && x < bandWidth && y >= 0 && y < height) {
+						counts[(int) y * bandWidth + (int) x]++;
+					}
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * sets the band to the columns of the first and the last value, one
+		 * column wider on each side for the rounding of the projections
+		 */
+		void setBand() {
+			float first = (float) ((data.getX(from) - minX) * scaleX) + offsetX;
+			float last = (float) ((data.getX(to - 1) - minX) * scaleX) + offsetX;
+			if (first <= last) {
+				bandStart = (int) Math.max(0, Math.floor(first) - 1);
+				bandEnd = (int) Math.min(width, Math.floor(last) + 2);
+			} else {
+				// not a plain projection, e.g. NaN
+				bandStart = 0;
+				bandEnd = width;
+			}
+			bandEnd = Math.max(bandStart, bandEnd);
+		}
+	}
+
+	private final List<Chunk> chunks = new ArrayList<Chunk>();
+	// false while counting and after counting failed
+	private boolean valid;
+	private SeriesSnapshot data;
+	private int from;
+	private int to;
+	private double minX;
+	private double scaleX;
+	private float offsetX;
+	private double minY;
+	private double scaleY;
+	private float offsetY;
+	private int width;
+	private int height;
+	// sum of the counts of the chunks
+	private int[] counts = new int[0];
+	private int maxCount;
+	private int[] pixels;
+	private Bitmap bitmap;
+	private int[] coloredRamp;
+	int lastDraw;
+
+	/**
+	 * @return true if the counts were computed from the slice with the
+	 *         projection
+	 */
+	boolean matches(SeriesSnapshot data, int from, int to, double minX,
+			double scaleX, float offsetX, double minY, double scaleY,
+			float offsetY, int width, int height) {
+		return valid && this.data == data && this.from == from && this.to == to
+				&& this.minX == minX && this.scaleX == scaleX
+				&& this.offsetX == offsetX && this.minY == minY
+				&& this.scaleY == scaleY && this.offsetY == offsetY
+				&& this.width == width && this.height == height;
+	}
+
+	/**
+	 * counts the values of the slice per pixel of a width x height area.
+	 * If the UI thread is interrupted meanwhile, the counts are incomplete:
+	 * nothing is drawn and the next frame counts again.
+	 */
+	void count(SeriesSnapshot data, int from, int to, double minX,
+			double scaleX, float offsetX, double minY, double scaleY,
+			float offsetY, int width, int height) {
+		valid = false;
+		coloredRamp = null;
+		this.data = data;
+		this.from = from;
+		this.to = to;
+		this.minX = minX;
+		this.scaleX = scaleX;
+		this.offsetX = offsetX;
+		this.minY = minY;
+		this.scaleY = scaleY;
+		this.offsetY = offsetY;
+		this.width = width;
+		this.height = height;
+
+		int n = to - from;
+		if (n <= 0 || width <= 0 || height <= 0) {
+			return;
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		int parts = Math.max(1, Math.min(threads, n / MIN_CHUNK));
+		while (chunks.size() < parts) {
+			chunks.add(new Chunk());
+		}
+		// grids of unused chunks are dropped
+		while (chunks.size() > parts) {
+			chunks.remove(chunks.size() - 1);
+		}
+		for (int p = 0; p < parts; p++) {
+			Chunk chunk = chunks.get(p);
+			chunk.from = from + (int) ((long) n * p / parts);
+			chunk.to = from + (int) ((long) n * (p + 1) / parts);
+			chunk.setBand();
+		}
+		if (parts == 1) {
+			chunks.get(0).call();
+		} else {
+			try {
+				List<Future<Void>> done = executor().invokeAll(chunks);
+				for (Future<Void> f : done) {
+					f.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		// add the bands up
+		int pixelCount = width * height;
+		if (counts.length < pixelCount) {
+			counts = new int[pixelCount];
+		} else {
+			Arrays.fill(counts, 0, pixelCount, 0);
+		}
+		for (Chunk chunk : chunks) {
+			int bandWidth = chunk.bandEnd - chunk.bandStart;
+			int[] c = chunk.counts;
+			for (int y = 0; y < height; y++) {
+				int row = y * width + chunk.bandStart;
+				int bandRow = y * bandWidth;
+				for (int x = 0; x < bandWidth; x++) {
+					counts[row + x] += c[bandRow + x];
+				}
+			}
+		}
+		int max = 0;
+		for (int i = 0; i < pixelCount; i++) {
+			if (counts[i] > max) {
+				max = counts[i];
+			}
+		}
+		maxCount = max;
+		valid = true;
+	}
+
+	/**
+	 * draws the counts, colored with the ramp, with the top left pixel of
+	 * the area at left, top. The bitmap is only colored again if the counts
+	 * or the ramp changed.
+	 *
+	 * @param ramp
+	 *            256 colors, from the lowest to the highest density
+	 */
+	void draw(Canvas canvas, int[] ramp, float left, float top) {
+		if (!valid) {
+			return;
+		}
+		if (coloredRamp != ramp) {
+			color(ramp);
+			coloredRamp = ramp;
+		}
+		canvas.drawBitmap(bitmap, left, top, null);
+	}
+
+	/**
+	 * colors the pixels on a logarithmic scale, pixels without values stay
+	 * transparent
+	 */
+	private void color(int[] ramp) {
+		int pixelCount = width * height;
+		if (pixels == null || pixels.length < pixelCount) {
+			pixels = new int[pixelCount];
+		}
+		if (bitmap == null || bitmap.getWidth() != width
+				|| bitmap.getHeight() != height) {
+			bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		}
+		double scale = maxCount > 1 ? (ramp.length - 1) / Math.log(maxCount)
+				: 0;
+		int[] levels = new int[Math.min(maxCount, LEVELS_TABLE_SIZE) + 1];
+		for (int c = 1; c < levels.length; c++) {
+			levels[c] = ramp[(int) (Math.log(c) * scale)];
+		}
+		for (int i = 0; i < pixelCount; i++) {
+			int c = counts[i];
+			if (c == 0) {
+				pixels[i] = 0;
+			} else if (c < levels.length) {
+				pixels[i] = levels[c];
+			} else {
+				pixels[i] = ramp[(int) (Math.log(c) * scale)];
+			}
+		}
+		bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+	}
+
+	/**
+	 * @return estimated number of bytes of the counts, pixels and bitmap
+	 */
+	long getRetainedBytes() {
+		long bytes = 4L * counts.length;
+		for (Chunk chunk : chunks) {
+			bytes += 4L * chunk.counts.length + 4L * chunk.buffer.length;
+		}
+		if (pixels != null) {
+			bytes += 4L * pixels.length;
+		}
+		if (bitmap != null) {
+			bytes += 4L * bitmap.getWidth() * bitmap.getHeight();
+		}
+		return bytes;
+	}
+
+	private static synchronized ExecutorService executor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(Runtime.getRuntime()
+					.availableProcessors(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "GraphView density"); //NO I18N
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return executor;
+	}
+}
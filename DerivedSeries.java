@@ -0,0 +1,339 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+/**
+ * series computed from another series, e.g. a moving average or a rolling
+ * min/max band. It stores no data of its own: the values are computed from
+ * the current data of the source, and only for the values that are drawn.
+ *
+ * The window is a number of values. The moving average uses the prefix sums
+ * of the source ({@link SeriesSnapshot#getStatistics(int, int, RangeStatistics)}),
+ * which are extended incrementally when data is appended, so every value
+ * costs O(1). The rolling extrema use a monotonic deque, O(1) per value
+ * amortized. Where the source has a gap, the derived series has one, too.
+ */
+public class DerivedSeries extends GraphViewSeries {
+	public enum Function {
+		MOVING_AVERAGE, ROLLING_MIN, ROLLING_MAX
+	}
+
+	/**
+	 * the derived values of one snapshot of the source. The values of the
+	 * index range that is drawn are computed at once in
+	 * {@link #prepare(int, int)}, other values one by one. A snapshot of
+	 * newer data of the source takes the computed values over, so streaming
+	 * data only computes the new values.
+	 */
+	static final class DerivedSnapshot extends SeriesSnapshot {
+		/**
+		 * values of the index range from - to
+		 */
+		private static final class Computed {
+			final int from;
+			final int to;
+			// y[i - base] is the value at index i
+			final int base;
+			final double[] y;
+			// rolling min/max: the candidates of the window that ends at to,
+			// as distances to to, so that the values after to are computed
+			// without going back a window
+			final int[] candidates;
+
+			Computed(int from, int to, int base, double[] y, int[] candidates) {
+				this.from = from;
+				this.to = to;
+				this.base = base;
+				this.y = y;
+				this.candidates = candidates;
+			}
+
+			/**
+			 * @return the values for newer data, whose value i is the value i
+			 *         + removed of this data, or null if none are left
+			 */
+			Computed shift(int removed, int window) {
+				if (removed == 0) {
+					return this;
+				}
+				// the windows of the first values lost values
+				int from = Math.max(this.from - removed, window - 1);
+				int to = this.to - removed;
+				if (from >= to) {
+					return null;
+				}
+				return new Computed(from, to, base - removed, y, candidates);
+			}
+		}
+
+		final SeriesSnapshot source;
+		private final Function function;
+		private final int window;
+		private volatile Computed computed;
+		// for the values outside of the computed range
+		private final RangeStatistics stats = new RangeStatistics();
+
+		/**
+		 * @param previous
+		 *            [optional] derived values of older data of the source,
+		 *            which source is a successor of
+		 */
+		DerivedSnapshot(SeriesSnapshot source, Function function, int window,
+				DerivedSnapshot previous) {
+			this.source = source;
+			this.function = function;
+			this.window = window;
+			if (previous != null && previous.computed != null) {
+				computed = previous.computed.shift(source
+						.removedSince(previous.source), window);
+			}
+		}
+
+		@Override
+		public int size() {
+			return source.size();
+		}
+
+		@Override
+		public double getX(int index) {
+			return source.getX(index);
+		}
+
+		@Override
+		public double getY(int index) {
+			Computed c = computed;
+			if (c != null && index >= c.from && index < c.to) {
+				return c.y[index - c.base];
+			}
+			return compute(index);
+		}
+
+		@Override
+		public int lowerIndex(double x) {
+			return source.lowerIndex(x);
+		}
+
+		@Override
+		public int upperIndex(double x) {
+			return source.upperIndex(x);
+		}
+
+		/**
+		 * the derived values become plain values of a copy, so that they can
+		 * be changed
+		 */
+		@Override
+		public SeriesSnapshot append(double x, double y) {
+			return ArraySeriesSnapshot.copyOf(this).append(x, y);
+		}
+
+		@Override
+		public SeriesSnapshot removeFirst(int count) {
+			return ArraySeriesSnapshot.copyOf(this).removeFirst(count);
+		}
+
+		/**
+		 * computes the values of the range and one range to each side of it,
+		 * so that short scrolls don't compute again. The values computed
+		 * before are taken over.
+		 */
+		@Override
+		void prepare(int from, int to) {
+			Computed c = computed;
+			if (c != null && from >= c.from && to <= c.to) {
+				return;
+			}
+			int margin = to - from;
+			from = Math.max(0, from - margin);
+			to = Math.min(size(), to + margin);
+			double[] y = new double[to - from];
+			int[] candidates;
+			if (c != null && c.from < to && c.to > from) {
+				int keepFrom = Math.max(from, c.from);
+				int keepTo = Math.min(to, c.to);
+				System.arraycopy(c.y, keepFrom - c.base, y, keepFrom - from,
+						keepTo - keepFrom);
+				computeValues(from, keepFrom, from, y, null);
+				// continue the rolling state after the computed values
+				candidates = computeValues(keepTo, to, from, y,
+						keepTo == c.to ? c.candidates : null);
+			} else {
+				candidates = computeValues(from, to, from, y, null);
+			}
+			computed = new Computed(from, to, from, y, candidates);
+		}
+
+		/**
+		 * computes the values of the index range from - to into y, value i at
+		 * y[i - base]
+		 *
+		 * @param candidates
+		 *            [optional] rolling min/max: the candidates of the window
+		 *            ending at from
+		 * @return rolling min/max: the candidates of the window ending at to
+		 */
+		private int[] computeValues(int from, int to, int base, double[] y,
+				int[] candidates) {
+			if (function != Function.MOVING_AVERAGE) {
+				return computeExtrema(from, to, base, y, candidates);
+			}
+			StatisticsIndex index = source.statistics();
+			for (int i = from; i < to; i++) {
+				y[i - base] = average(index, i);
+			}
+			return null;
+		}
+
+		private double compute(int index) {
+			if (source.nextGap(index, index + 1) == index) {
+				return Double.NaN;
+			}
+			if (function == Function.MOVING_AVERAGE) {
+				return average(source.statistics(), index);
+			}
+			// hit tests and bounds of other ranges may come from other threads
+			synchronized (stats) {
+				source.getStatistics(Math.max(0, index - window + 1),
+						index + 1, stats);
+				return function == Function.ROLLING_MIN ? stats.getMin()
+						: stats.getMax();
+			}
+		}
+
+		private double average(StatisticsIndex index, int i) {
+			if (source.nextGap(i, i + 1) == i) {
+				return Double.NaN;
+			}
+			int start = Math.max(0, i - window + 1);
+			return index.sum(start, i + 1) / index.count(start, i + 1);
+		}
+
+		/**
+		 * rolling min/max with a monotonic deque of indexes: the deque holds
+		 * the candidates of the window, their values ascending for the
+		 * minimum. A new value removes all candidates it beats.
+		 */
+		private int[] computeExtrema(int from, int to, int base, double[] y,
+				int[] candidates) {
+			boolean min = function == Function.ROLLING_MIN;
+			int start = candidates == null ? Math.max(0, from - window + 1)
+					: from;
+			int[] deque = new int[(candidates == null ? 0 : candidates.length)
+					+ to - start];
+			int head = 0;
+			int tail = 0;
+			if (candidates != null) {
+				for (int distance : candidates) {
+					deque[tail++] = from - distance;
+				}
+			}
+			for (int i = start; i < to; i++) {
+				boolean gap = source.nextGap(i, i + 1) == i;
+				if (!gap) {
+					double v = source.getY(i);
+					while (tail > head) {
+						double last = source.getY(deque[tail - 1]);
+						if (min ? last < v : last > v) {
+							break;
+						}
+						tail--;
+					}
+					deque[tail++] = i;
+				}
+				while (tail > head && deque[head] <= i - window) {
+					head++;
+				}
+				if (i >= from) {
+					y[i - base] = gap || tail == head ? Double.NaN : source
+							.getY(deque[head]);
+				}
+			}
+			// the candidates left for the windows after to
+			while (tail > head && deque[head] <= to - window) {
+				head++;
+			}
+			int[] next = new int[tail - head];
+			for (int i = head; i < tail; i++) {
+				next[i - head] = to - deque[i];
+			}
+			return next;
+		}
+	}
+
+	private final GraphViewSeries source;
+	private final Function function;
+	private final int window;
+	private volatile DerivedSnapshot current;
+
+	public DerivedSeries(GraphViewSeries source, Function function, int window) {
+		this(null, null, source, function, window);
+	}
+
+	/**
+	 * @param description
+	 *            [optional] legend text
+	 * @param style
+	 *            [optional]
+	 * @param source
+	 *            series the values are computed from
+	 * @param function
+	 * @param window
+	 *            number of values of the window
+	 */
+	public DerivedSeries(String description, GraphViewSeriesStyle style,
+			GraphViewSeries source, Function function, int window) {
+		super(description, style, new GraphViewDataInterface[0]);
+		if (window < 1) {
+			throw new IllegalArgumentException("window must be at least 1"); //NO I18N
+		}
+		this.source = source;
+		this.function = function;
+		this.window = window;
+	}
+
+	public GraphViewSeries getSource() {
+		return source;
+	}
+
+	public Function getFunction() {
+		return function;
+	}
+
+	public int getWindow() {
+		return window;
+	}
+
+	/**
+	 * @return the derived values of a snapshot of the source. The last one is
+	 *         cached, so all graphs share the computed values.
+	 */
+	SeriesSnapshot snapshot(SeriesSnapshot sourceData) {
+		DerivedSnapshot d = current;
+		if (d == null || d.source != sourceData) {
+			d = new DerivedSnapshot(sourceData, function, window, d != null
+					&& sourceData.isSuccessorOf(d.source) ? d : null);
+			current = d;
+		}
+		return d;
+	}
+}
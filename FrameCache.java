@@ -0,0 +1,178 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+/**
+ * the per-frame data path of a series: picks the data a frame draws, the
+ * values, their rollup or a decimated copy, and keeps the rollup and the
+ * decimated copy between frames. A graph has one per series, the stress run
+ * of the snapshots drives the same code without a device.
+ */
+final class FrameCache {
+	/**
+	 * a rollup has a bucket every this many pixels
+	 */
+	static final int ROLLUP_PIXELS = 8;
+
+	/**
+	 * slices with more values per pixel are decimated
+	 */
+	static final int DECIMATION_VALUES_PER_PIXEL = 4;
+
+	private RollupSnapshot rollup;
+	private DecimatedSnapshot decimated;
+	// the slice of the last decimate() result
+	int sliceFrom;
+	int sliceTo;
+
+	/**
+	 * @return index of the first value from start on, including one value
+	 *         before it for nice scrolling
+	 */
+	static int sliceStart(SeriesSnapshot data, double start) {
+		return Math.max(0, data.lowerIndex(start) - 1);
+	}
+
+	/**
+	 * @return index after the last value up to end, including one value
+	 *         after it for nice scrolling
+	 */
+	static int sliceEnd(SeriesSnapshot data, double end) {
+		return Math.min(data.size(), data.upperIndex(end) + 1);
+	}
+
+	/**
+	 * @return the coarsest bucket width that still gives a bucket every
+	 *         {@link #ROLLUP_PIXELS} pixels, 0 if the raw values are not
+	 *         many more
+	 */
+	static long rollupLevel(SeriesSnapshot data, double viewportStart,
+			double viewportSize, int width) {
+		if (width <= 0 || viewportSize <= 0) {
+			return 0;
+		}
+		int values = data.upperIndex(viewportStart + viewportSize)
+				- data.lowerIndex(viewportStart);
+		long[] levels = RollupSnapshot.LEVELS;
+		for (int l = levels.length - 1; l >= 0; l--) {
+			double buckets = viewportSize / levels[l];
+			if (buckets >= width / ROLLUP_PIXELS) {
+				return values > 2 * buckets ? levels[l] : 0;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * rolls the data up for the viewport
+	 *
+	 * @see #rollUp(SeriesSnapshot, double, double, int, double, double)
+	 */
+	SeriesSnapshot rollUp(SeriesSnapshot data, double viewportStart,
+			double viewportSize, int width) {
+		return rollUp(data, viewportStart, viewportSize, width, viewportStart,
+				viewportStart + viewportSize);
+	}
+
+	/**
+	 * @return the rolled up data of the x range fromX - toX if the viewport
+	 *         holds many more values than pixels, else the data. The rollup
+	 *         is built for one viewport more to each side, so it is reused
+	 *         while the graph is panned, and updated when values are
+	 *         appended.
+	 */
+	SeriesSnapshot rollUp(SeriesSnapshot data, double viewportStart,
+			double viewportSize, int width, double fromX, double toX) {
+		long level = rollupLevel(data, viewportStart, viewportSize, width);
+		if (level == 0) {
+			return data;
+		}
+		RollupSnapshot r = rollup;
+		if (r == null || r.getBucketWidth() != level || !r.covers(fromX, toX)) {
+			r = RollupSnapshot.build(data, level, fromX - viewportSize, toX
+					+ viewportSize);
+		} else if (r.source != data) {
+			// new values, mostly appended to the last bucket
+			r = r.update(data);
+		}
+		rollup = r;
+		return r;
+	}
+
+	/**
+	 * reduces the slice from - to of the data to a few values per column if
+	 * it holds many more values than pixels. The slice of the result is left
+	 * in {@link #sliceFrom} and {@link #sliceTo}.
+	 *
+	 * @return the decimated copy or the data
+	 */
+	SeriesSnapshot decimate(SeriesSnapshot data, int from, int to,
+			double columnWidth, float width) {
+		sliceFrom = from;
+		sliceTo = to;
+		if (to - from <= DECIMATION_VALUES_PER_PIXEL * width) {
+			return data;
+		}
+		double fromX = data.getX(from);
+		double toX = data.getX(to - 1);
+		DecimatedSnapshot d = decimated(data, fromX, toX, columnWidth);
+		sliceFrom = d.sliceStart(fromX);
+		sliceTo = d.sliceEnd(toX);
+		return d;
+	}
+
+	/**
+	 * @return the reduced values of the x range fromX - toX. They are
+	 *         reused while the graph is panned by less than the viewport or
+	 *         zoomed by less than a factor 2, and updated when values are
+	 *         appended.
+	 */
+	private DecimatedSnapshot decimated(SeriesSnapshot data, double fromX,
+			double toX, double columnWidth) {
+		DecimatedSnapshot d = decimated;
+		if (d == null || d.columnWidth > 2 * columnWidth
+				|| d.columnWidth < columnWidth / 2 || !d.covers(fromX, toX)) {
+			d = DecimatedSnapshot.build(data, fromX, toX, columnWidth);
+		} else if (d.source != data) {
+			d = d.update(data);
+		}
+		decimated = d;
+		return d;
+	}
+
+	RollupSnapshot getRollup() {
+		return rollup;
+	}
+
+	DecimatedSnapshot getDecimated() {
+		return decimated;
+	}
+
+	void dropRollup() {
+		rollup = null;
+	}
+
+	void dropDecimated() {
+		decimated = null;
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+/**
+ * timings of the frames drawn by a graph, for checking the rendering of
+ * large data sets on the device, e.g. in a stress run of the app. A frame
+ * counts as slow if it took longer than the frame time target of the graph.
+ *
+ * With {@link GraphView#setAllocationCounting(boolean)} the bytes allocated
+ * in each frame are counted too. Drawing from unchanged data shouldn't
+ * allocate at all, so a steady state average above 0 points to allocations
+ * in onDraw or drawSeries.
+ *
+ * The stats are updated on the UI thread, read them there too.
+ */
+public final class FrameStats {
+	private int frameCount;
+	private int slowFrameCount;
+	private long lastNanos;
+	private long maxNanos;
+	private long totalNanos;
+	private int allocationFrameCount;
+	private long lastAllocatedBytes;
+	private long maxAllocatedBytes;
+	private long totalAllocatedBytes;
+
+	FrameStats() {
+	}
+
+	void record(long nanos, long targetNanos) {
+		frameCount++;
+		if (nanos > targetNanos) {
+			slowFrameCount++;
+		}
+		lastNanos = nanos;
+		if (nanos > maxNanos) {
+			maxNanos = nanos;
+		}
+		totalNanos += nanos;
+	}
+
+	void recordAllocation(long bytes) {
+		allocationFrameCount++;
+		lastAllocatedBytes = bytes;
+		if (bytes > maxAllocatedBytes) {
+			maxAllocatedBytes = bytes;
+		}
+		totalAllocatedBytes += bytes;
+	}
+
+	/**
+	 * @return number of frames since the last reset
+	 */
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * @return number of frames that took longer than the frame time target
+	 */
+	public int getSlowFrameCount() {
+		return slowFrameCount;
+	}
+
+	public float getLastFrameMs() {
+		return lastNanos / 1000000f;
+	}
+
+	public float getMaxFrameMs() {
+		return maxNanos / 1000000f;
+	}
+
+	public float getAverageFrameMs() {
+		return frameCount == 0 ? 0 : totalNanos / 1000000f / frameCount;
+	}
+
+	/**
+	 * @return bytes allocated in the last frame, 0 if the allocations are not
+	 *         counted
+	 */
+	public long getLastAllocatedBytes() {
+		return lastAllocatedBytes;
+	}
+
+	public long getMaxAllocatedBytes() {
+		return maxAllocatedBytes;
+	}
+
+	/**
+	 * @return average bytes allocated per frame, of the frames drawn while
+	 *         the allocations were counted
+	 */
+	public long getAverageAllocatedBytes() {
+		return allocationFrameCount == 0 ? 0 : totalAllocatedBytes
+				/ allocationFrameCount;
+	}
+
+	/**
+	 * starts counting again, e.g. after the data was loaded
+	 */
+	public void reset() {
+		frameCount = 0;
+		slowFrameCount = 0;
+		lastNanos = 0;
+		maxNanos = 0;
+		totalNanos = 0;
+		allocationFrameCount = 0;
+		lastAllocatedBytes = 0;
+		maxAllocatedBytes = 0;
+		totalAllocatedBytes = 0;
+	}
+}
@@ -23,15 +23,17 @@
 package com.jjoe64.graphview;
 
 import java.io.Serializable;
-import java.sql.Date;
-import java.text.NumberFormat;
-import java.text.SimpleDateFormat;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import android.content.Context;
 import android.graphics.Canvas;
@@ -40,11 +42,17 @@ import android.graphics.Paint;
 import android.graphics.Paint.Align;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.Debug;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
+import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 
 import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
@@ -68,13 +76,12 @@ abstract public class GraphView extends LinearLayout {
 		static final float BORDER = 20;
 	}
 
-	public class GraphViewContentView extends View // implements
-	// View.OnClickListener
+	public class GraphViewContentView extends View implements
+			RecordedLayer.Painter // View.OnClickListener
 	{
 		private float lastTouchEventX;
 		private float graphwidth;
 		private boolean scrollingStarted;
-		private Paint paintInd;
 		double viewPStart, viewPEnd;
 		boolean clickedOnce = false;
 		private double viewWidth;
@@ -83,6 +90,19 @@ abstract public class GraphView extends LinearLayout {
 		boolean isShowPressCalled = false;
 		final int axisColor=0xFFCCCCCC;
 		Canvas canvas;
+		private final ViewportAnimator animator;
+		private VelocityTracker velocityTracker;
+		private float downX;
+		private final int touchSlop;
+		private final int minFlingVelocity;
+		private final int maxFlingVelocity;
+		// grid, axes and horizontal labels
+		private final RecordedLayer staticLayer = new RecordedLayer(this);
+		private final Paint paintYAxis = new Paint();
+		private float layerBorder;
+		private float layerHeight;
+		private float layerWidth;
+		private float layerGraphheight;
 
 
 		class EventData {
@@ -100,10 +120,13 @@ abstract public class GraphView extends LinearLayout {
 		public GraphViewContentView(Context context) {
 			super(context);
 
-			paintInd = new Paint();
 			eventDataMap = new HashMap<Integer, EventData>();
-			final SimpleDateFormat dhFormat = new SimpleDateFormat(
-					"MMM-dd \n HH:mm"); 	//NO I18N  
+			animator = new ViewportAnimator(context);
+			ViewConfiguration vc = ViewConfiguration.get(context);
+			touchSlop = vc.getScaledTouchSlop();
+			minFlingVelocity = vc.getScaledMinimumFlingVelocity();
+			maxFlingVelocity = vc.getScaledMaximumFlingVelocity();
+			paintYAxis.setColor(axisColor);
 			mDetector = new GestureDetector(GraphView.this.getContext(),
 					new mListener());
 			this.setOnClickListener(new OnClickListener() {
@@ -113,7 +136,8 @@ abstract public class GraphView extends LinearLayout {
 					// TODO Auto-generated method stub
 					if (clickedOnce) {
 						eventDataMap.clear();
-						onMoveGesture(initialStart, initialEnd);
+						invalidateOverlay();
+						animateViewport(initialStart, initialEnd);
 					}
 
 					clickedOnce = true;
@@ -140,6 +164,7 @@ abstract public class GraphView extends LinearLayout {
 
 		public void clearEventData() {
 			eventDataMap.clear();
+			invalidateOverlay();
 		}
 
 		/**
@@ -150,11 +175,14 @@ abstract public class GraphView extends LinearLayout {
 
 		
 			this.canvas = canvas;
+			long frameStart = System.nanoTime();
+			long allocStart = allocationCounting ? threadAllocSize() : 0;
+			boolean gestureFrame = isGestureActive();
+			renderQuality = gestureFrame ? gestureQuality : RenderQuality.FULL;
+			pinSnapshots();
 			paint.setAntiAlias(true);
 			paint.setStrokeWidth(0);
 
-			paintInd.setStyle(Paint.Style.FILL);
-			paintInd.setColor(Color.LTGRAY);
 			// canvas.drawColor(Color.BLACK);
 
 			float border = GraphViewConfig.BORDER;
@@ -166,7 +194,7 @@ abstract public class GraphView extends LinearLayout {
 			// if(redrawGraph)
 			{
 
-				if (labelTextHeight == null || horLabelTextWidth == null) {
+				if (labelTextHeight == null || horMetricsVersion != styleVersion) {
 					paint.setTextSize(getGraphViewStyle().getTextSize());
 					double testX = ((getMaxX(true) - getMinX(true)) * 0.783)
 							+ getMinX(true);
@@ -176,43 +204,27 @@ abstract public class GraphView extends LinearLayout {
 					
 					labelTextHeight = (int) (dpToPx(10));
 					horLabelTextWidth = (textBounds.width());
+					horMetricsVersion = styleVersion;
 				}
 				border += labelTextHeight;
 
 				float graphheight = height - (2 * border);
 				graphwidth = width;
-				if (horlabels == null) {
-					horlabels = generateHorlabels(graphwidth);
-				}
-				if (verlabels == null) {
-					verlabels = generateVerlabels(graphheight);
-				}
-
-				// vertical lines
-				paint.setTextAlign(Align.LEFT);
-				int vers = verlabels.length - 1;
-				for (int i = 0; i < verlabels.length; i++) {
-					paint.setColor(graphViewStyle.getGridColor());
-					float y = ((graphheight / vers) * i) + border;
-					canvas.drawLine(horstart, y, width, y, paint);
-
-				}
-				
-				
-				Paint axisPaint=new Paint();
-				axisPaint.setColor(axisColor);
-				axisPaint.setStrokeWidth(5);
-				Paint paintYAxis=new Paint();
-				paintYAxis.setStrokeWidth(dpToPx(1));
-				paintYAxis.setColor(0xFFCCCCCC);
-				canvas.drawLine(0, graphheight+border, 0, 0, paintYAxis);
-				canvas.drawLine(0, graphheight+border+dpToPx(1), graphwidth, graphheight+border+dpToPx(1), paintYAxis);
-				
-				drawHorizontalLabels(canvas, border, horstart, height,
-						horlabels, graphwidth);
+				updateHorlabels(graphwidth);
+				updateVerlabels(graphheight);
+
+				layerBorder = border;
+				layerHeight = height;
+				layerWidth = width;
+				layerGraphheight = graphheight;
+				staticLayer.draw(canvas, horlabels, verlabels, styleVersion,
+						getWidth(), getHeight());
 				paint.setTextAlign(Align.CENTER);
-				double maxY = getMaxY();
-				double minY = getMinY();
+				setFrameAxis(YAxis.LEFT, getMaxY(), getMinY());
+				if (hasRightAxis()) {
+					setFrameAxis(YAxis.RIGHT, getMaxY(YAxis.RIGHT),
+							getMinY(YAxis.RIGHT));
+				}
 				double maxX = viewportStart + viewportSize;
 				//
 				//
@@ -221,38 +233,79 @@ abstract public class GraphView extends LinearLayout {
 				//
 				double diffX = maxX - minX;
 
-				if (maxY == minY) {
-					// if min/max is the same, fake it so that we can render a
-					// line
-					if (maxY == 0) {
-						// if both are zero, change the values to prevent
-						// division
-						// by zero
-						maxY = 1.0d;
-						minY = 0.0d;
-					} else {
-						maxY = maxY * 1.05d;
-						minY = minY * 0.95d;
-					}
-				}
-				double diffY = maxY - minY;
 				paint.setStrokeCap(Paint.Cap.ROUND);
 				for (int i = 0; i < graphSeries.size(); i++) {
-					drawSeries(canvas, _values(i), graphwidth, graphheight,
-							border, minX, minY, diffX, diffY, horstart,
-							graphSeries.get(i).style);
+					int axis = yAxis(i).ordinal();
+					SeriesSnapshot data = snapshot(i);
+					int from = sliceStart(i);
+					int to = sliceEnd(i);
+					drawingSeries = graphSeries.get(i);
+					if (renderQuality == RenderQuality.DECIMATED
+							&& isDecimationAllowed()) {
+						FrameCache cache = frameCache(drawingSeries);
+						data = cache.decimate(data, from, to, diffX
+								/ graphwidth, graphwidth);
+						from = cache.sliceFrom;
+						to = cache.sliceTo;
+					}
+					drawSeries(canvas, data, from, to, graphwidth, graphheight,
+							border, minX, frameMinY[axis], diffX,
+							frameDiffY[axis], horstart, drawingSeries.style);
 				}
+				drawingSeries = null;
+				// remember the projection for the hit tests
+				drawnSnapshots = frameSnapshots;
+				drawnGraphwidth = graphwidth;
+				drawnGraphheight = graphheight;
+				drawnBorder = border;
+				drawnHorstart = horstart;
+				drawnMinX = minX;
+				drawnDiffX = diffX;
+				System.arraycopy(frameMinY, 0, drawnMinY, 0, frameMinY.length);
+				System.arraycopy(frameDiffY, 0, drawnDiffY, 0,
+						frameDiffY.length);
 
 			}
+			frameSnapshots = null;
+			long frameNanos = System.nanoTime() - frameStart;
+			frameStats.record(frameNanos, frameTimeTarget);
+			if (allocationCounting) {
+				frameStats.recordAllocation(threadAllocSize() - allocStart);
+			}
+			if (gestureFrame) {
+				adaptRenderQuality(frameNanos);
+			}
+		}
 
-			paintInd.setStyle(Paint.Style.FILL);
-			paintInd.setColor(0xFF398eb5);
-			for (EventData event : eventDataMap.values()) {
+		/**
+		 * draws the grid, the axes and the horizontal labels. They only
+		 * change with the labels, the style and the size, so they are
+		 * recorded once and replayed, see {@link RecordedLayer}.
+		 */
+		@Override
+		public void paintLayer(Canvas canvas) {
+			float border = layerBorder;
+			float horstart = 0;
+			float width = layerWidth;
+			float graphheight = layerGraphheight;
 
-				canvas.drawRect(event.x - dpToPx(0.5f), 0, event.x + dpToPx(0.5f),
-						canvas.getHeight(), paintInd);
-			}
+			// vertical lines
+			paint.setTextAlign(Align.LEFT);
+			int vers = verlabels.length - 1;
+			for (int i = 0; i < verlabels.length; i++) {
+				paint.setColor(graphViewStyle.getGridColor());
+				float y = ((graphheight / vers) * i) + border;
+				canvas.drawLine(horstart, y, width, y, paint);
 
+			}
+			
+			
+			paintYAxis.setStrokeWidth(dpToPx(1));
+			canvas.drawLine(0, graphheight+border, 0, 0, paintYAxis);
+			canvas.drawLine(0, graphheight+border+dpToPx(1), graphwidth, graphheight+border+dpToPx(1), paintYAxis);
+			
+			drawHorizontalLabels(canvas, border, horstart, layerHeight,
+					horlabels, graphwidth);
 		}
 
 		public void onMoveGesture(double vpStart, double vpEnd) {
@@ -263,16 +316,116 @@ abstract public class GraphView extends LinearLayout {
 				viewportSize = vpEnd - vpStart;
 
 				setViewPort(viewportStart, viewportSize);
-				if (!staticHorizontalLabels)
-					horlabels = null;
-				if (!staticVerticalLabels)
-					verlabels = null;
 
 				viewVerLabels.invalidate();
+				viewRightLabels.invalidate();
+				if (viewportGroup != null) {
+					viewportGroup.onMoveGesture(GraphView.this, vpStart, vpEnd);
+				}
+			}
+			invalidate();
+		}
+
+		/**
+		 * moves the viewport to vpStart - vpEnd with a short animation instead
+		 * of jumping to it.
+		 * 
+		 * @param vpStart
+		 * @param vpEnd
+		 */
+		public void animateViewport(double vpStart, double vpEnd) {
+			if (viewportSize == 0) {
+				onMoveGesture(vpStart, vpEnd);
+				return;
 			}
+			animator.zoomTo(viewportStart, viewportSize, vpStart, vpEnd
+					- vpStart);
+			beginViewportAnimation(animator.getRangeStart(),
+					animator.getRangeEnd());
 			invalidate();
 		}
 
+		@Override
+		public void computeScroll() {
+			if (animator.computeFrame()) {
+				double start = animator.getCurrentStart();
+				double size = animator.getCurrentSize();
+				if (animator.isRunning()) {
+					applyViewportAnimationFrame(clampViewportStart(start, size),
+							size);
+				} else {
+					finishViewportAnimation(clampViewportStart(start, size),
+							size);
+				}
+			}
+		}
+
+		/**
+		 * the animation frames only re-project the sliced data, the labels and
+		 * the y bounds are updated once the viewport settles.
+		 */
+		private void finishViewportAnimation(double start, double size) {
+			endViewportAnimation();
+			onMoveGesture(start, start + size);
+		}
+
+		private void stopViewportAnimation() {
+			if (animator.isRunning()) {
+				animator.abort();
+				finishViewportAnimation(viewportStart, viewportSize);
+			}
+		}
+
+		private double clampViewportStart(double start, double size) {
+			double minX = getMinX(true);
+			double maxX = getMaxX(true);
+			if (maxX > minX) {
+				if (start + size > maxX) {
+					start = maxX - size;
+				}
+				if (start < minX) {
+					start = minX;
+				}
+			}
+			return start;
+		}
+
+		private void panBy(float dx) {
+			double start = viewportStart - dx * viewportSize / graphwidth;
+			applyViewportAnimationFrame(clampViewportStart(start, viewportSize),
+					viewportSize);
+		}
+
+		/**
+		 * starts panning once the pointer left the touch slop. The historical
+		 * samples are checked as well, so that the pan starts at the exact
+		 * sample that crossed the slop and doesn't jump.
+		 */
+		private boolean startScrolling(MotionEvent event) {
+			int historySize = event.getHistorySize();
+			for (int h = 0; h <= historySize; h++) {
+				float x = h < historySize ? event.getHistoricalX(0, h) : event
+						.getX(0);
+				if (Math.abs(x - downX) > touchSlop) {
+					scrollingStarted = true;
+					lastTouchEventX = x;
+					// slice one viewport to each side, so that short pans don't
+					// have to slice again
+					beginViewportAnimation(viewportStart - viewportSize,
+							viewportStart + 2 * viewportSize);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void recycleVelocityTracker() {
+			if (velocityTracker != null) {
+				velocityTracker.recycle();
+				velocityTracker = null;
+			}
+		}
+
 		/**
 		 * @param event
 		 */
@@ -289,29 +442,51 @@ abstract public class GraphView extends LinearLayout {
 			switch (eventType & MotionEvent.ACTION_MASK) {
 
 //			case MotionEvent.ACTION_HOVER_EXIT:
-//			case MotionEvent.ACTION_CANCEL:
 
 			case MotionEvent.ACTION_DOWN:
+				stopViewportAnimation();
+				recycleVelocityTracker();
+				velocityTracker = VelocityTracker.obtain();
+				velocityTracker.addMovement(event);
+				downX = event.getX(pointerIndex);
+				scrollingStarted = false;
 				EventData eventData = new EventData();
 				eventData.x = event.getX(pointerIndex);
 				eventData.y = event.getY(pointerIndex);
 				if (eventDataMap.size() < 2) {
 					eventDataMap.put(Integer.valueOf(pointerId), eventData);
 				}
+				invalidateOverlay();
 				return true;
 			case MotionEvent.ACTION_POINTER_DOWN:
 				getParent().requestDisallowInterceptTouchEvent(true);
+				if (scrollingStarted) {
+					scrollingStarted = false;
+					finishViewportAnimation(viewportStart, viewportSize);
+				}
 				eventData = new EventData();
 				eventData.x = event.getX(pointerIndex);
 				eventData.y = event.getY(pointerIndex);
 				if (eventDataMap.size() < 2) {
 					eventDataMap.put(Integer.valueOf(pointerId), eventData);
 				}
-				invalidate();
+				invalidateOverlay();
 				return true;
 
 			case MotionEvent.ACTION_MOVE:
 				getParent().requestDisallowInterceptTouchEvent(true);
+				if (velocityTracker != null) {
+					// the tracker consumes the historical samples of the event
+					velocityTracker.addMovement(event);
+				}
+				if (scrollable && viewportSize != 0
+						&& event.getPointerCount() == 1
+						&& eventDataMap.size() < 2) {
+					if (scrollingStarted || startScrolling(event)) {
+						panBy(event.getX(0) - lastTouchEventX);
+						lastTouchEventX = event.getX(0);
+					}
+				}
 				for (int i = 0; i < event.getPointerCount(); i++) {
 					int curPointerId = event.getPointerId(i);
 					if (eventDataMap.containsKey(Integer.valueOf(curPointerId))) {
@@ -322,7 +497,9 @@ abstract public class GraphView extends LinearLayout {
 						//
 					}
 				}
-				invalidate();
+				// panning redraws the graph by itself, the indicators are on
+				// the overlay
+				invalidateOverlay();
 				return true;
 
 			case MotionEvent.ACTION_POINTER_UP:
@@ -349,24 +526,56 @@ abstract public class GraphView extends LinearLayout {
 
 					viewPStart = tempViewPStart + (viewPStart * vpDiff);
 					setViewPort(viewPStart, (viewPEnd - viewPStart));
-					if (_values(0).length < 8) {
-						setViewPort(tempViewPStart, tempViewPEnd
-								- tempViewPStart);
-						// redrawGraph=false;
-						viewPStart = tempViewPStart;
-						viewPEnd = tempViewPEnd;
+					boolean tooFewValues = sliceEnd(0) - sliceStart(0) < 8;
+					setViewPort(tempViewPStart, tempViewPEnd - tempViewPStart);
+					if (!tooFewValues) {
+						animateViewport(viewPStart, viewPEnd);
 					}
-					onMoveGesture(viewPStart, viewPEnd);
 				}
 
 				eventDataMap.clear();
-				invalidate();
+				invalidateOverlay();
 				return true;
 
 			case MotionEvent.ACTION_UP:
+				if (scrollingStarted) {
+					scrollingStarted = false;
+					velocityTracker.computeCurrentVelocity(1000,
+							maxFlingVelocity);
+					float velocityX = velocityTracker.getXVelocity(pointerId);
+					if (Math.abs(velocityX) > minFlingVelocity) {
+						double minX = getMinX(true);
+						double maxX = getMaxX(true);
+						if (maxX <= minX) {
+							minX = Double.NEGATIVE_INFINITY;
+							maxX = Double.POSITIVE_INFINITY;
+						}
+						animator.fling(viewportStart, viewportSize, graphwidth,
+								velocityX, minX, maxX);
+						beginViewportAnimation(animator.getRangeStart(),
+								animator.getRangeEnd());
+					} else {
+						finishViewportAnimation(viewportStart, viewportSize);
+					}
+				}
+				recycleVelocityTracker();
 				eventDataMap.clear();
+				invalidateOverlay();
+				// starts the fling
 				invalidate();
 				return true;
+
+			case MotionEvent.ACTION_CANCEL:
+				// the parent took the gesture over, unpin the slices so that
+				// new data shows up again
+				if (scrollingStarted) {
+					scrollingStarted = false;
+					finishViewportAnimation(viewportStart, viewportSize);
+				}
+				recycleVelocityTracker();
+				eventDataMap.clear();
+				invalidateOverlay();
+				return true;
 			}
 			return false;
 
@@ -463,6 +672,12 @@ abstract public class GraphView extends LinearLayout {
 			this.valueY = valueY;
 		}
 
+		public GraphViewData(double valueX, double valueY) {
+			super();
+			this.valueX = valueX;
+			this.valueY = valueY;
+		}
+
 		@Override
 		public double getX() {
 			return valueX;
@@ -479,12 +694,78 @@ abstract public class GraphView extends LinearLayout {
 		TOP, MIDDLE, BOTTOM
 	}
 
-	private class VerLabelsView extends View {
+	/**
+	 * the y axes a series can be scaled to, see
+	 * {@link GraphView#setYAxis(GraphViewSeries, YAxis)}
+	 */
+	public enum YAxis {
+		LEFT, RIGHT
+	}
+
+	/**
+	 * how the series are drawn. During gestures the quality is lowered step by
+	 * step while the frames take longer than the frame time target.
+	 */
+	public enum RenderQuality {
+		/**
+		 * anti-aliased lines and the area fill
+		 */
+		FULL,
+		/**
+		 * all values, without anti-aliasing and fill
+		 */
+		NO_FILL,
+		/**
+		 * only the first, smallest, largest and last value of every pixel
+		 * column, without anti-aliasing and fill
+		 */
+		DECIMATED
+	}
+
+	/**
+	 * draws the pointer indicators and {@link GraphView#drawOverlay(Canvas)}
+	 * above the graph. It is invalidated on its own, so moving a pointer
+	 * doesn't redraw the grid, the labels and the series.
+	 */
+	private class OverlayView extends View {
+		private final Paint paintInd;
+
+		public OverlayView(Context context) {
+			super(context);
+			paintInd = new Paint();
+			paintInd.setStyle(Paint.Style.FILL);
+			paintInd.setColor(0xFF398eb5);
+		}
+
+		@Override
+		protected void onDraw(Canvas canvas) {
+			for (GraphViewContentView.EventData event : graphViewContentView.eventDataMap
+					.values()) {
+				canvas.drawRect(event.x - dpToPx(0.5f), 0, event.x
+						+ dpToPx(0.5f), canvas.getHeight(), paintInd);
+			}
+			drawOverlay(canvas);
+		}
+	}
+
+	private class VerLabelsView extends View implements RecordedLayer.Painter {
+		private final YAxis axis;
+		private final RecordedLayer labelsLayer = new RecordedLayer(this);
+		private float layerBorder;
+		private float layerGraphheight;
+		private String[] layerLabels;
+		private Integer labelTextWidth;
+		private int metricsVersion = -1;
+		private int metricsSeriesVersion = -1;
+
 		/**
 		 * @param context
+		 * @param axis
+		 *            the axis the labels belong to
 		 */
-		public VerLabelsView(Context context) {
+		public VerLabelsView(Context context, YAxis axis) {
 			super(context);
+			this.axis = axis;
 			setLayoutParams(new LayoutParams(getGraphViewStyle()
 					.getVerticalLabelsWidth() == 0 ? 100 : getGraphViewStyle()
 					.getVerticalLabelsWidth(), LayoutParams.FILL_PARENT));
@@ -498,20 +779,25 @@ abstract public class GraphView extends LinearLayout {
 			// normal
 			paint.setStrokeWidth(0);
 
-			if (labelTextHeight == null || verLabelTextWidth == null) {
+			if (labelTextHeight == null || labelTextWidth == null
+					|| metricsVersion != styleVersion
+					|| metricsSeriesVersion != seriesVersion) {
 				paint.setTextSize(getGraphViewStyle().getTextSize());
-				double testY = ((getMaxY() - getMinY()) * 0.783) + getMinY();
+				double testY = ((getMaxY(axis) - getMinY(axis)) * 0.783)
+						+ getMinY(axis);
 				String testLabel = formatLabel(testY, false);
 				paint.getTextBounds(testLabel, 0, testLabel.length(),
 						textBounds);
 				labelTextHeight = (textBounds.height());
-				verLabelTextWidth = (textBounds.width());
+				labelTextWidth = (textBounds.width());
+				metricsVersion = styleVersion;
+				metricsSeriesVersion = seriesVersion;
 			}
 			if (getGraphViewStyle().getVerticalLabelsWidth() == 0
-					&& getLayoutParams().width != verLabelTextWidth
+					&& getLayoutParams().width != labelTextWidth
 							+ GraphViewConfig.BORDER) {
 				setLayoutParams(new LayoutParams(
-						(int) (verLabelTextWidth + GraphViewConfig.BORDER),
+						(int) (labelTextWidth + GraphViewConfig.BORDER),
 						LayoutParams.FILL_PARENT));
 			} else if (getGraphViewStyle().getVerticalLabelsWidth() != 0
 					&& getGraphViewStyle().getVerticalLabelsWidth() != getLayoutParams().width) {
@@ -524,10 +810,29 @@ abstract public class GraphView extends LinearLayout {
 			float height = getHeight();
 			float graphheight = height - (2 * border);
 
-			if (verlabels == null) {
-				verlabels = generateVerlabels(graphheight);
+			if (axis == YAxis.LEFT) {
+				updateVerlabels(graphheight);
+				layerLabels = verlabels;
+			} else {
+				updateRightVerlabels(graphheight);
+				layerLabels = rightVerlabels;
 			}
 
+			layerBorder = border;
+			layerGraphheight = graphheight;
+			labelsLayer.draw(canvas, layerLabels, null, styleVersion,
+					getWidth(), getHeight());
+		}
+
+		/**
+		 * draws the vertical labels, recorded once per labels, see
+		 * {@link RecordedLayer}
+		 */
+		@Override
+		public void paintLayer(Canvas canvas) {
+			float border = layerBorder;
+			float graphheight = layerGraphheight;
+
 			// vertical labels
 			paint.setTextAlign(getGraphViewStyle().getVerticalLabelsAlign());
 			int labelsWidth = getWidth();
@@ -537,12 +842,13 @@ abstract public class GraphView extends LinearLayout {
 			} else if (getGraphViewStyle().getVerticalLabelsAlign() == Align.CENTER) {
 				labelsOffset = labelsWidth / 2;
 			}
-			int vers = verlabels.length - 1;
+			String[] labels = layerLabels;
+			int vers = labels.length - 1;
 			paint.setColor(graphViewStyle.getVerticalLabelsColor());
-			for (int i = 0; i < verlabels.length; i++) {
+			for (int i = 0; i < labels.length; i++) {
 				float y = ((graphheight / vers) * i) + border;
 				
-				canvas.drawText(verlabels[i], labelsOffset, y, paint);
+				canvas.drawText(labels[i], labelsOffset, y, paint);
 			}
 
 			// reset
@@ -551,6 +857,43 @@ abstract public class GraphView extends LinearLayout {
 
 	}
 
+	/**
+	 * formats the x labels of a snapped viewport on the label thread, then
+	 * hands them to the UI thread
+	 */
+	private final class HorlabelsTask implements Runnable {
+		final double viewportStart;
+		final double viewportSize;
+		final int numLabels;
+		final int styleVersion;
+		// written on the label thread before the task is posted back
+		String[] labels;
+
+		HorlabelsTask(double viewportStart, double viewportSize,
+				int numLabels, int styleVersion) {
+			this.viewportStart = viewportStart;
+			this.viewportSize = viewportSize;
+			this.numLabels = numLabels;
+			this.styleVersion = styleVersion;
+		}
+
+		@Override
+		public void run() {
+			if (horlabelsTask != this) {
+				// a newer viewport was requested meanwhile
+				return;
+			}
+			labels = BACKGROUND_LABELS.labels(viewportStart, viewportSize,
+					numLabels);
+			uiHandler.post(new Runnable() {
+				@Override
+				public void run() {
+					publishHorlabels(HorlabelsTask.this);
+				}
+			});
+		}
+	}
+
 	protected final Paint paint;
 	private String[] horlabels;
 	private String[] verlabels;
@@ -560,10 +903,90 @@ abstract public class GraphView extends LinearLayout {
 	private double viewportStart;
 	private double viewportSize;
 	private final View viewVerLabels;
+	private final View viewRightLabels;
 	private ScaleGestureDetector scaleDetector;
 	private boolean scalable;
-	private final NumberFormat[] numberformatter = new NumberFormat[2];
 	private final List<GraphViewSeries> graphSeries;
+	private final Map<GraphViewSeries, ObjectArraySnapshot> seriesSnapshots = new IdentityHashMap<GraphViewSeries, ObjectArraySnapshot>();
+	private SeriesSnapshot[] frameSnapshots;
+	private final SeriesSnapshot[][] pinnedSnapshots = { new SeriesSnapshot[0],
+			new SeriesSnapshot[0] };
+	private int pinnedArray;
+	/*
+	 * versions of the inputs of the cached artifacts (labels, text metrics,
+	 * slices, y bounds). An artifact remembers the versions it was computed
+	 * from and is only computed again when one of them changed. The viewport
+	 * and data versions are detected on access by comparing the viewport and
+	 * the snapshots of the series with the last ones seen.
+	 */
+	// changed by everything that changes the look of the grid and labels
+	private int styleVersion;
+	// changed when series are added or removed
+	private int seriesVersion;
+	private int viewportVersion;
+	private double versionedViewportStart;
+	private double versionedViewportSize;
+	// changed when any series has new data
+	private int dataVersion;
+	private int[] dataVersions = new int[0];
+	private SeriesSnapshot[] versionedSnapshots = new SeriesSnapshot[0];
+	// the artifacts and the versions they were computed from
+	private int horlabelsViewportVersion = -1;
+	private int horlabelsStyleVersion = -1;
+	private int verlabelsStyleVersion = -1;
+	private int horMetricsVersion = -1;
+	private int[] sliceFrom = new int[0];
+	private int[] sliceTo = new int[0];
+	private int[] sliceDataVersions = new int[0];
+	private int[] sliceViewportVersions = new int[0];
+	private final double[] yBoundsMin = new double[2];
+	private final double[] yBoundsMax = new double[2];
+	private int yBoundsDataVersion = -1;
+	private int yBoundsViewportVersion = -1;
+	private int yBoundsSeriesVersion = -1;
+	private static final RenderQuality[] RENDER_QUALITIES = RenderQuality
+			.values();
+	private static final YAxis[] Y_AXES = YAxis.values();
+	// a scale gesture counts as finished after this time without scaling
+	private static final long GESTURE_SETTLE_MS = 150;
+	private RenderQuality renderQuality = RenderQuality.FULL;
+	private RenderQuality gestureQuality = RenderQuality.FULL;
+	private RenderQuality lowestGestureQuality = RenderQuality.DECIMATED;
+	private long frameTimeTarget = 12000000;
+	private long lastScaleTime;
+	private GraphViewSeries drawingSeries;
+	private final FrameStats frameStats = new FrameStats();
+	private boolean allocationCounting;
+	// graphs counting allocations, see setAllocationCounting
+	private static int allocCountingGraphs;
+	private final Runnable gestureSettled = new Runnable() {
+		@Override
+		public void run() {
+			// one pass in full quality
+			graphViewContentView.invalidate();
+		}
+	};
+	private static final int STATE_MAGIC = 0x54535647; // "GVST"
+	private static final int STATE_HEADER_SIZE = 48;
+	private boolean rollupEnabled;
+	private final Map<GraphViewSeries, FrameCache> frameCaches = new IdentityHashMap<GraphViewSeries, FrameCache>();
+	// the data and projection of the last frame
+	private SeriesSnapshot[] drawnSnapshots;
+	private float drawnGraphwidth, drawnGraphheight, drawnBorder, drawnHorstart;
+	private double drawnMinX, drawnDiffX;
+	// y projection per axis, of the frame being drawn and of the last frame
+	private final double[] frameMinY = new double[2];
+	private final double[] frameDiffY = new double[2];
+	private final double[] drawnMinY = new double[2];
+	private final double[] drawnDiffY = new double[2];
+	// the series that are not on the left axis
+	private final Map<GraphViewSeries, YAxis> seriesAxes = new IdentityHashMap<GraphViewSeries, YAxis>();
+	private String[] rightVerlabels;
+	private double rightVerlabelsMaxY, rightVerlabelsMinY;
+	private int rightVerlabelsStyleVersion = -1;
+	private volatile boolean dataChanged;
+	private volatile boolean scrollToEndPending;
+	private double verlabelsMaxY, verlabelsMinY;
 	private boolean showLegend = false;
 	private LegendAlign legendAlign = LegendAlign.MIDDLE;
 	private boolean manualYAxis;
@@ -571,108 +994,1056 @@ abstract public class GraphView extends LinearLayout {
 	private double manualMinYValue;
 	protected GraphViewStyle graphViewStyle;
 	private final GraphViewContentView graphViewContentView;
+	private final OverlayView overlayView;
 	private CustomLabelFormatter customLabelFormatter;
 	private Integer labelTextHeight;
 	private Integer horLabelTextWidth;
-	private Integer verLabelTextWidth;
 	private final Rect textBounds = new Rect();
+	private final RectF legendRect = new RectF();
+	private String[] splitHorlabelsSource;
+	private String[][] splitHorlabels;
+	// the x labels computed on the UI thread
+	private final TimeAxisLabels timeAxisLabels = new TimeAxisLabels();
+	// the x labels computed on the label thread, only used there
+	private static final TimeAxisLabels BACKGROUND_LABELS = new TimeAxisLabels();
+	private static ExecutorService labelExecutor;
+	private final Handler uiHandler = new Handler(Looper.getMainLooper());
+	// the x labels being computed in the background, null if none
+	private volatile HorlabelsTask horlabelsTask;
+	private final boolean formatLabelOverridden;
 	private boolean staticHorizontalLabels;
 	private boolean staticVerticalLabels;
 	public double initialStart, initialEnd;
 	private  float screenDensity;
+	private ViewportGroup viewportGroup;
+	private SeriesSnapshot[] animationSnapshots;
+	private int[] animationFrom, animationTo;
+	private double animationRangeStart, animationRangeEnd;
+	private final double[] animationMaxY = new double[2];
+	private final double[] animationMinY = new double[2];
+
+	public GraphView(Context context, AttributeSet attrs) {
+		this(context, attrs.getAttributeValue(null, "title"));
+
+		int width = attrs.getAttributeIntValue("android", "layout_width",
+				LayoutParams.MATCH_PARENT);
+		int height = attrs.getAttributeIntValue("android", "layout_height",
+				LayoutParams.MATCH_PARENT);
+		setLayoutParams(new LayoutParams(width, height));
+	}
+
+	public GraphViewContentView getContentView() {
+		return this.graphViewContentView;
+	}
+
+	/**
+	 * @param context
+	 * @param title
+	 *            [optional]
+	 */
+	public GraphView(Context context, String title) {
+		super(context);
+		
+		setLayoutParams(new LayoutParams(LayoutParams.FILL_PARENT,
+				LayoutParams.FILL_PARENT));
+
+		if (title == null)
+		{
+			this.title = "";
+		}
+		this.setScreenDensity(context.getResources().getDisplayMetrics().density);
+		graphViewStyle = new GraphViewStyle();
+		graphViewStyle.useTextColorFromTheme(context);
+
+		paint = new Paint();
+		graphSeries = new ArrayList<GraphViewSeries>();
+
+		viewVerLabels = new VerLabelsView(context, YAxis.LEFT);
+		viewRightLabels = new VerLabelsView(context, YAxis.RIGHT);
+		viewRightLabels.setVisibility(View.GONE);
+
+		graphViewContentView = new GraphViewContentView(context);
+		overlayView = new OverlayView(context);
+		// the overlay lies on the content view and lets the touch events pass
+		FrameLayout graphFrame = new FrameLayout(context);
+		graphFrame.addView(graphViewContentView, new FrameLayout.LayoutParams(
+				LayoutParams.FILL_PARENT, LayoutParams.FILL_PARENT));
+		graphFrame.addView(overlayView, new FrameLayout.LayoutParams(
+				LayoutParams.FILL_PARENT, LayoutParams.FILL_PARENT));
+		addView(viewVerLabels);
+		addView(graphFrame, new LayoutParams(LayoutParams.FILL_PARENT,
+				LayoutParams.FILL_PARENT, 1));
+		addView(viewRightLabels);
+		graphFrame.bringToFront();
+		formatLabelOverridden = overridesFormatLabel();
+	}
+
+	/**
+	 * draws above the graph, override it for crosshairs, tooltips etc. The
+	 * coordinates are the ones of the content view, see
+	 * {@link #toScreenX(double)} and {@link #findNearestValue(int, float, float)}.
+	 * 
+	 * @param canvas
+	 */
+	protected void drawOverlay(Canvas canvas) {
+	}
+
+	/**
+	 * redraws only the overlay, e.g. when a crosshair moved
+	 */
+	public void invalidateOverlay() {
+		overlayView.invalidate();
+	}
+
+	public double getViewportStart() {
+		return this.viewportStart;
+	}
+
+	public double getViewportSize() {
+		return this.viewportSize;
+	}
+
+	public void setViewportStart(double viewportStart) {
+		this.viewportStart = viewportStart;
+	}
+
+	public void setViewportSize(double viewportSize) {
+		this.viewportSize = viewportSize;
+	}
+
+	/**
+	 * freezes the sliced data and the y bounds while the viewport is animated,
+	 * so that the frames only have to re-project the geometry. The slices cover
+	 * the whole range the animation passes through.
+	 * 
+	 * @param rangeStart
+	 * @param rangeEnd
+	 */
+	void beginViewportAnimation(double rangeStart, double rangeEnd) {
+		if (animationSnapshots == null) {
+			for (YAxis axis : Y_AXES) {
+				animationMaxY[axis.ordinal()] = getMaxY(axis);
+				animationMinY[axis.ordinal()] = getMinY(axis);
+			}
+		}
+		animationSnapshots = null;
+		int n = graphSeries.size();
+		SeriesSnapshot[] snapshots = new SeriesSnapshot[n];
+		int[] from = new int[n];
+		int[] to = new int[n];
+		for (int i = 0; i < n; i++) {
+			snapshots[i] = snapshot(i, rangeStart, rangeEnd);
+			from[i] = FrameCache.sliceStart(snapshots[i], rangeStart);
+			to[i] = FrameCache.sliceEnd(snapshots[i], rangeEnd);
+		}
+		animationRangeStart = rangeStart;
+		animationRangeEnd = rangeEnd;
+		animationFrom = from;
+		animationTo = to;
+		animationSnapshots = snapshots;
+		if (viewportGroup != null) {
+			viewportGroup.beginViewportAnimation(this, rangeStart, rangeEnd);
+		}
+	}
+
+	/**
+	 * moves the viewport during an animation. Labels and y bounds are kept,
+	 * only the content is redrawn.
+	 * 
+	 * @param start
+	 * @param size
+	 */
+	void applyViewportAnimationFrame(double start, double size) {
+		viewportStart = start;
+		viewportSize = size;
+		if (animationSnapshots != null
+				&& (start < animationRangeStart || start + size > animationRangeEnd)) {
+			// left the sliced range, slice again around the new viewport
+			beginViewportAnimation(start - size, start + 2 * size);
+		}
+		graphViewContentView.invalidate();
+		if (viewportGroup != null) {
+			viewportGroup.applyViewportAnimationFrame(this, start, size);
+		}
+	}
+
+	void endViewportAnimation() {
+		animationSnapshots = null;
+		for (int i = 0; i < graphSeries.size(); i++) {
+			FrameCache cache = frameCaches.get(graphSeries.get(i));
+			if (cache != null) {
+				cache.dropDecimated();
+			}
+		}
+		if (viewportGroup != null) {
+			viewportGroup.endViewportAnimation(this);
+		}
+	}
+
+	/**
+	 * @return the viewport group this graph belongs to, or null
+	 */
+	public ViewportGroup getViewportGroup() {
+		return viewportGroup;
+	}
+
+	void setViewportGroup(ViewportGroup viewportGroup) {
+		this.viewportGroup = viewportGroup;
+	}
+
+	/**
+	 * @return the data of the series. Plain GraphViewSeries are wrapped
+	 *         without copying their values.
+	 */
+	SeriesSnapshot snapshot(int idxSeries) {
+		if (animationSnapshots != null
+				&& idxSeries < animationSnapshots.length) {
+			return animationSnapshots[idxSeries];
+		}
+		if (frameSnapshots != null && idxSeries < frameSnapshots.length) {
+			return frameSnapshots[idxSeries];
+		}
+		GraphViewSeries series = graphSeries.get(idxSeries);
+		SeriesSnapshot data = snapshotOf(series);
+		if (!isRolledUp(series)) {
+			return data;
+		}
+		return frameCache(series).rollUp(data, viewportStart, viewportSize,
+				graphViewContentView.getWidth());
+	}
+
+	/**
+	 * @return the quality the series are drawn in, lower than
+	 *         {@link RenderQuality#FULL} only during gestures
+	 */
+	protected RenderQuality getRenderQuality() {
+		return renderQuality;
+	}
+
+	/**
+	 * @return false if the series have to be drawn from all values even in
+	 *         {@link RenderQuality#DECIMATED}, e.g. because every value is a
+	 *         point of its own
+	 */
+	protected boolean isDecimationAllowed() {
+		return true;
+	}
+
+	/**
+	 * @param quality
+	 *            the lowest quality the graph switches to during gestures
+	 *            when the frames are too slow. {@link RenderQuality#FULL}
+	 *            disables the adaptive quality.
+	 */
+	public void setLowestGestureRenderQuality(RenderQuality quality) {
+		lowestGestureQuality = quality;
+		if (gestureQuality.ordinal() > quality.ordinal()) {
+			gestureQuality = quality;
+		}
+	}
+
+	public RenderQuality getLowestGestureRenderQuality() {
+		return lowestGestureQuality;
+	}
+
+	/**
+	 * @param ms
+	 *            frame time the quality is adapted to during gestures
+	 */
+	public void setFrameTimeTarget(float ms) {
+		frameTimeTarget = (long) (ms * 1000000);
+	}
+
+	public float getFrameTimeTarget() {
+		return frameTimeTarget / 1000000f;
+	}
+
+	/**
+	 * @return timings of the frames drawn so far
+	 */
+	public FrameStats getFrameStats() {
+		return frameStats;
+	}
+
+	/**
+	 * counts the bytes allocated on the UI thread in every frame, see
+	 * {@link FrameStats#getAverageAllocatedBytes()}. Allocation counting slows
+	 * down the whole VM a little, so it is off by default; use it in test and
+	 * stress runs. The counters of the VM are global, they run while any
+	 * graph counts.
+	 */
+	public void setAllocationCounting(boolean allocationCounting) {
+		if (allocationCounting == this.allocationCounting) {
+			return;
+		}
+		this.allocationCounting = allocationCounting;
+		if (allocationCounting) {
+			startAllocCounting();
+		} else {
+			stopAllocCounting();
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private static synchronized void startAllocCounting() {
+		if (allocCountingGraphs++ == 0) {
+			Debug.startAllocCounting();
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private static synchronized void stopAllocCounting() {
+		if (--allocCountingGraphs == 0) {
+			Debug.stopAllocCounting();
+		}
+	}
+
+	/**
+	 * @return bytes allocated by the current thread since the counting
+	 *         started
+	 */
+	@SuppressWarnings("deprecation")
+	private static long threadAllocSize() {
+		return Debug.getThreadAllocSize();
+	}
+
+	public boolean isAllocationCounting() {
+		return allocationCounting;
+	}
+
+	/**
+	 * estimates the memory the graph keeps alive: the data of the series and
+	 * their statistics indexes, the rolled up and decimated copies and the
+	 * caches of the graph type. A
+	 * snapshot shared by several series is counted once. This walks all
+	 * series, so it is meant for checks and logging, not for every frame.
+	 *
+	 * @return estimated number of bytes
+	 */
+	public long getRetainedBytes() {
+		Map<SeriesSnapshot, Boolean> counted = new IdentityHashMap<SeriesSnapshot, Boolean>();
+		long bytes = 0;
+		for (GraphViewSeries series : graphSeries) {
+			bytes += retainedBytes(snapshotOf(series), counted);
+			FrameCache cache = frameCaches.get(series);
+			if (cache != null) {
+				bytes += retainedBytes(cache.getRollup(), counted);
+				bytes += retainedBytes(cache.getDecimated(), counted);
+			}
+		}
+		if (drawnSnapshots != null) {
+			for (SeriesSnapshot s : drawnSnapshots) {
+				bytes += retainedBytes(s, counted);
+			}
+		}
+		return bytes + getCacheBytes();
+	}
+
+	private static long retainedBytes(SeriesSnapshot data,
+			Map<SeriesSnapshot, Boolean> counted) {
+		if (data == null || counted.put(data, Boolean.TRUE) != null) {
+			return 0;
+		}
+		return data.getRetainedBytes() + data.getStatisticsBytes();
+	}
+
+	/**
+	 * @return estimated number of bytes of the buffers and caches a graph
+	 *         type keeps between frames
+	 */
+	protected long getCacheBytes() {
+		return 0;
+	}
+
+	/**
+	 * @return true while the viewport is panned, flung, zoomed or scaled
+	 */
+	boolean isGestureActive() {
+		return animationSnapshots != null
+				|| SystemClock.uptimeMillis() - lastScaleTime < GESTURE_SETTLE_MS;
+	}
+
+	/**
+	 * lowers the quality if a frame of a gesture was too slow, raises it if
+	 * there is plenty of time left
+	 */
+	private void adaptRenderQuality(long frameNanos) {
+		int level = gestureQuality.ordinal();
+		if (frameNanos > frameTimeTarget
+				&& level < lowestGestureQuality.ordinal()) {
+			level++;
+		} else if (frameNanos < frameTimeTarget / 3 && level > 0) {
+			level--;
+		}
+		gestureQuality = RENDER_QUALITIES[level];
+	}
+
+	/**
+	 * @return the rollup and decimation caches of the series
+	 */
+	private FrameCache frameCache(GraphViewSeries series) {
+		FrameCache cache = frameCaches.get(series);
+		if (cache == null) {
+			cache = new FrameCache();
+			frameCaches.put(series, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * @return true if the series is drawn from rollups when the viewport
+	 *         holds many more values than pixels
+	 */
+	private boolean isRolledUp(GraphViewSeries series) {
+		return rollupEnabled && viewportSize > 0
+				&& !(series instanceof DerivedSeries);
+	}
+
+	/**
+	 * @return the data of the series for drawing the x range fromX - toX. If
+	 *         rollups are enabled and the viewport holds many more values
+	 *         than pixels, the values are rolled up into buckets.
+	 */
+	private SeriesSnapshot snapshot(int idxSeries, double fromX, double toX) {
+		GraphViewSeries series = graphSeries.get(idxSeries);
+		SeriesSnapshot data = snapshotOf(series);
+		if (!isRolledUp(series)) {
+			return data;
+		}
+		return frameCache(series).rollUp(data, viewportStart, viewportSize,
+				graphViewContentView.getWidth(), fromX, toX);
+	}
+
+	/**
+	 * plots rolled up buckets (per minute, hour or day) instead of the raw
+	 * values when the viewport spans many more values than pixels. The x
+	 * values have to be timestamps in milliseconds. Derived series are not
+	 * rolled up.
+	 * 
+	 * @see RollupSnapshot
+	 */
+	public void setRollupEnabled(boolean rollupEnabled) {
+		this.rollupEnabled = rollupEnabled;
+		for (FrameCache cache : frameCaches.values()) {
+			cache.dropRollup();
+		}
+		redrawAll();
+	}
+
+	public boolean isRollupEnabled() {
+		return rollupEnabled;
+	}
+
+	private SeriesSnapshot snapshotOf(GraphViewSeries series) {
+		if (series instanceof SnapshotSeries) {
+			return ((SnapshotSeries) series).getSnapshot();
+		}
+		if (series instanceof DerivedSeries) {
+			DerivedSeries derived = (DerivedSeries) series;
+			return derived.snapshot(snapshotOf(derived.getSource()));
+		}
+		ObjectArraySnapshot data = seriesSnapshots.get(series);
+		if (data == null || data.values != series.values) {
+			data = new ObjectArraySnapshot(series.values);
+			seriesSnapshots.put(series, data);
+		}
+		return data;
+	}
+
+	/**
+	 * reads the current snapshot of every series once, so that a frame is
+	 * drawn from one consistent state even if producers publish new data
+	 * meanwhile.
+	 */
+	private void pinSnapshots() {
+		frameSnapshots = null;
+		// two arrays in turn, the other one holds the snapshots of the last
+		// frame for the hit tests
+		pinnedArray ^= 1;
+		SeriesSnapshot[] snapshots = pinnedSnapshots[pinnedArray];
+		if (snapshots.length != graphSeries.size()) {
+			snapshots = new SeriesSnapshot[graphSeries.size()];
+			pinnedSnapshots[pinnedArray] = snapshots;
+		}
+		for (int i = 0; i < snapshots.length; i++) {
+			snapshots[i] = snapshot(i);
+		}
+		frameSnapshots = snapshots;
+		for (int i = 0; i < snapshots.length; i++) {
+			snapshots[i].prepare(sliceStart(i), sliceEnd(i));
+		}
+	}
+
+	/**
+	 * finds the value of a series nearest to a point of the graph, as it was
+	 * drawn in the last frame. It doesn't allocate, so it can be called on
+	 * every touch move.
+	 * 
+	 * @param idxSeries
+	 * @param x
+	 *            x coordinate in the graph content view, like the touch events
+	 * @param y
+	 *            y coordinate in the graph content view
+	 * @return index of the value, -1 if the series has no values or was not
+	 *         drawn yet. See {@link #getDrawnX(int, int)} and
+	 *         {@link #getDrawnY(int, int)}.
+	 */
+	public int findNearestValue(int idxSeries, float x, float y) {
+		return findNearest(idxSeries, x, y, true);
+	}
+
+	/**
+	 * like {@link #findNearestValue(int, float, float)}, but only the x
+	 * coordinate counts, e.g. for a crosshair
+	 */
+	public int findNearestValueX(int idxSeries, float x) {
+		return findNearest(idxSeries, x, 0, false);
+	}
+
+	private int findNearest(int idxSeries, float x, float y, boolean useY) {
+		SeriesSnapshot data = drawnSnapshot(idxSeries);
+		if (data == null || data.size() == 0 || drawnDiffX == 0) {
+			return -1;
+		}
+		double valueX = toValueX(x);
+		YAxis axis = yAxis(idxSeries);
+		int first = data.lowerIndex(valueX);
+		int best = -1;
+		float bestDist = Float.POSITIVE_INFINITY;
+		// search outwards as long as the horizontal distance alone is smaller
+		for (int i = first; i < data.size(); i++) {
+			float dx = toScreenX(data.getX(i)) - x;
+			if (dx * dx >= bestDist) {
+				break;
+			}
+			if (data.nextGap(i, i + 1) == i) {
+				continue;
+			}
+			float dy = useY ? toScreenY(data.getY(i), axis) - y : 0;
+			if (dx * dx + dy * dy < bestDist) {
+				bestDist = dx * dx + dy * dy;
+				best = i;
+			}
+		}
+		for (int i = first - 1; i >= 0; i--) {
+			float dx = toScreenX(data.getX(i)) - x;
+			if (dx * dx >= bestDist) {
+				break;
+			}
+			if (data.nextGap(i, i + 1) == i) {
+				continue;
+			}
+			float dy = useY ? toScreenY(data.getY(i), axis) - y : 0;
+			if (dx * dx + dy * dy < bestDist) {
+				bestDist = dx * dx + dy * dy;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return x value of a value found by a hit test
+	 */
+	public double getDrawnX(int idxSeries, int index) {
+		return drawnSnapshot(idxSeries).getX(index);
+	}
+
+	/**
+	 * @return y value of a value found by a hit test
+	 */
+	public double getDrawnY(int idxSeries, int index) {
+		return drawnSnapshot(idxSeries).getY(index);
+	}
+
+	/**
+	 * @return x coordinate of a value in the last frame
+	 */
+	public float toScreenX(double valueX) {
+		return (float) (drawnGraphwidth * (valueX - drawnMinX) / drawnDiffX)
+				+ (drawnHorstart + 1);
+	}
+
+	/**
+	 * @return x value at a x coordinate of the last frame
+	 */
+	public double toValueX(float screenX) {
+		return drawnMinX + (screenX - drawnHorstart - 1) * drawnDiffX
+				/ drawnGraphwidth;
+	}
+
+	/**
+	 * computes the statistics of the values of a series between two x values
+	 * in O(log n), see {@link SeriesSnapshot#getStatistics(int, int, RangeStatistics)}.
+	 * 
+	 * @param result
+	 *            is filled with the statistics
+	 */
+	public void getRangeStatistics(int idxSeries, double fromX, double toX,
+			RangeStatistics result) {
+		// the raw values, not the rollups
+		SeriesSnapshot data = snapshotOf(graphSeries.get(idxSeries));
+		data.getStatistics(data.lowerIndex(Math.min(fromX, toX)),
+				data.upperIndex(Math.max(fromX, toX)), result);
+	}
+
+	/**
+	 * computes the statistics of the values of a series between the two
+	 * pointers of a selection, see {@link GraphViewContentView#getEventData()}
+	 * . Fast enough to be called on every touch move.
+	 * 
+	 * @param result
+	 *            is filled with the statistics
+	 * @return false if there are not two pointers down
+	 */
+	public boolean getSelectionStatistics(int idxSeries, RangeStatistics result) {
+		Map<Integer, GraphViewContentView.EventData> pointers = graphViewContentView.eventDataMap;
+		if (pointers.size() != 2 || drawnDiffX == 0) {
+			return false;
+		}
+		// the two pointers by id, like getEventData(), without an iterator
+		GraphViewContentView.EventData first = pointers.get(0);
+		GraphViewContentView.EventData second = pointers.get(1);
+		if (first == null || second == null) {
+			return false;
+		}
+		getRangeStatistics(idxSeries, toValueX(first.x), toValueX(second.x),
+				result);
+		return true;
+	}
+
+	/**
+	 * @return y coordinate of a value of the left axis in the last frame
+	 */
+	public float toScreenY(double valueY) {
+		return toScreenY(valueY, YAxis.LEFT);
+	}
+
+	/**
+	 * @return y coordinate of a value of the axis in the last frame
+	 */
+	public float toScreenY(double valueY, YAxis axis) {
+		int a = axis.ordinal();
+		return (float) (drawnBorder - drawnGraphheight
+				* (valueY - drawnMinY[a]) / drawnDiffY[a])
+				+ drawnGraphheight;
+	}
+
+	private SeriesSnapshot drawnSnapshot(int idxSeries) {
+		SeriesSnapshot[] snapshots = drawnSnapshots;
+		if (snapshots == null || idxSeries >= snapshots.length) {
+			return null;
+		}
+		return snapshots[idxSeries];
+	}
+
+	/**
+	 * called by the series when new data was published. This can be called
+	 * from any thread. All changes until the next frame are handled together
+	 * in {@link #applyDataChange()}.
+	 * 
+	 * @param scrollToEnd
+	 *            ignored if the graph is not scrollable. The series checks
+	 *            that before it publishes the data, see
+	 *            {@link #checkScrollable(boolean)}.
+	 */
+	void onSeriesDataChanged(boolean scrollToEnd) {
+		if (scrollToEnd && scrollable) {
+			scrollToEndPending = true;
+		}
+		dataChanged = true;
+		postInvalidate();
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *             if scrollToEnd is requested but the graph is not
+	 *             scrollable
+	 */
+	void checkScrollable(boolean scrollToEnd) {
+		if (scrollToEnd && !scrollable) {
+			throw new IllegalStateException("This GraphView is not scrollable."); //NO I18N
+		}
+	}
+
+	@Override
+	protected void dispatchDraw(Canvas canvas) {
+		applyDataChange();
+		super.dispatchDraw(canvas);
+	}
+
+	/**
+	 * updates the graph for new data. Unlike {@link #redrawAll()} the label
+	 * and text size caches are kept as long as the axes didn't change.
+	 */
+	private void applyDataChange() {
+		if (!dataChanged) {
+			return;
+		}
+		dataChanged = false;
+		if (scrollToEndPending) {
+			scrollToEndPending = false;
+			viewportStart = getMaxX(true) - viewportSize;
+			if (viewportGroup != null) {
+				viewportGroup.onMoveGesture(this, viewportStart, viewportStart
+						+ viewportSize);
+			}
+		}
+		if (animationSnapshots != null) {
+			animationSnapshots = null;
+			beginViewportAnimation(animationRangeStart, animationRangeEnd);
+		}
+		// the vertical labels only depend on the y bounds
+		if (!staticVerticalLabels && verlabels != null
+				&& (getMaxY() != verlabelsMaxY || getMinY() != verlabelsMinY)) {
+			viewVerLabels.invalidate();
+		}
+		if (hasRightAxis()
+				&& (getMaxY(YAxis.RIGHT) != rightVerlabelsMaxY || getMinY(YAxis.RIGHT) != rightVerlabelsMinY)) {
+			viewRightLabels.invalidate();
+		}
+		graphViewContentView.invalidate();
+	}
+
+	/**
+	 * @return index of the first value of the viewport, including one value
+	 *         before it for nice scrolling
+	 */
+	int sliceStart(int idxSeries) {
+		if (animationSnapshots != null
+				&& idxSeries < animationSnapshots.length) {
+			return animationFrom[idxSeries];
+		}
+		if (viewportStart == 0 && viewportSize == 0) {
+			// all data
+			return 0;
+		}
+		updateSlice(idxSeries);
+		return sliceFrom[idxSeries];
+	}
+
+	/**
+	 * @return index after the last value of the viewport, including one value
+	 *         after it for nice scrolling
+	 */
+	int sliceEnd(int idxSeries) {
+		if (animationSnapshots != null
+				&& idxSeries < animationSnapshots.length) {
+			return animationTo[idxSeries];
+		}
+		if (viewportStart == 0 && viewportSize == 0) {
+			// all data
+			return snapshot(idxSeries).size();
+		}
+		updateSlice(idxSeries);
+		return sliceTo[idxSeries];
+	}
+
+	/**
+	 * slices the series for the viewport, unless neither the data nor the
+	 * viewport changed since the last time
+	 */
+	private void updateSlice(int idxSeries) {
+		int n = graphSeries.size();
+		if (sliceFrom.length != n) {
+			sliceFrom = new int[n];
+			sliceTo = new int[n];
+			sliceDataVersions = new int[n];
+			sliceViewportVersions = new int[n];
+			Arrays.fill(sliceViewportVersions, -1);
+		}
+		int data = dataVersion(idxSeries);
+		int viewport = viewportVersion();
+		if (sliceDataVersions[idxSeries] != data
+				|| sliceViewportVersions[idxSeries] != viewport) {
+			SeriesSnapshot snapshot = snapshot(idxSeries);
+			sliceFrom[idxSeries] = FrameCache.sliceStart(snapshot,
+					viewportStart);
+			sliceTo[idxSeries] = FrameCache.sliceEnd(snapshot, viewportStart
+					+ viewportSize);
+			sliceDataVersions[idxSeries] = data;
+			sliceViewportVersions[idxSeries] = viewport;
+		}
+	}
 
-	public GraphView(Context context, AttributeSet attrs) {
-		this(context, attrs.getAttributeValue(null, "title"));
+	/**
+	 * @return the viewport version, increased if the viewport moved since the
+	 *         last call
+	 */
+	private int viewportVersion() {
+		if (viewportStart != versionedViewportStart
+				|| viewportSize != versionedViewportSize) {
+			versionedViewportStart = viewportStart;
+			versionedViewportSize = viewportSize;
+			viewportVersion++;
+		}
+		return viewportVersion;
+	}
 
-		int width = attrs.getAttributeIntValue("android", "layout_width",
-				LayoutParams.MATCH_PARENT);
-		int height = attrs.getAttributeIntValue("android", "layout_height",
-				LayoutParams.MATCH_PARENT);
-		setLayoutParams(new LayoutParams(width, height));
+	/**
+	 * @return the data version of a series, increased if its snapshot changed
+	 *         since the last call
+	 */
+	private int dataVersion(int idxSeries) {
+		int n = graphSeries.size();
+		if (versionedSnapshots.length != n) {
+			versionedSnapshots = new SeriesSnapshot[n];
+			dataVersions = new int[n];
+			dataVersion++;
+		}
+		SeriesSnapshot data = snapshot(idxSeries);
+		if (data != versionedSnapshots[idxSeries]) {
+			versionedSnapshots[idxSeries] = data;
+			dataVersions[idxSeries]++;
+			dataVersion++;
+		}
+		return dataVersions[idxSeries];
 	}
 
-	public GraphViewContentView getContentView() {
-		return this.graphViewContentView;
+	/**
+	 * @return version of the data of all series
+	 */
+	private int dataVersion() {
+		for (int i = 0; i < graphSeries.size(); i++) {
+			dataVersion(i);
+		}
+		return dataVersion;
 	}
 
 	/**
-	 * @param context
-	 * @param title
-	 *            [optional]
+	 * computes the smallest and largest y value of the slices, unless neither
+	 * the data nor the viewport changed since the last time
 	 */
-	public GraphView(Context context, String title) {
-		super(context);
-		
-		setLayoutParams(new LayoutParams(LayoutParams.FILL_PARENT,
-				LayoutParams.FILL_PARENT));
+	private void updateYBounds() {
+		int data = dataVersion();
+		int viewport = viewportVersion();
+		if (yBoundsDataVersion == data && yBoundsViewportVersion == viewport
+				&& yBoundsSeriesVersion == seriesVersion) {
+			return;
+		}
+		// one pass over the slices for all axes
+		Arrays.fill(yBoundsMin, Integer.MAX_VALUE);
+		Arrays.fill(yBoundsMax, Integer.MIN_VALUE);
+		for (int i = 0; i < graphSeries.size(); i++) {
+			SeriesSnapshot snapshot = snapshot(i);
+			int from = sliceStart(i);
+			int to = sliceEnd(i);
+			if (from < to) {
+				int axis = yAxis(i).ordinal();
+				yBoundsMin[axis] = Math.min(yBoundsMin[axis], snapshot.getMinY(
+						from, to));
+				yBoundsMax[axis] = Math.max(yBoundsMax[axis], snapshot.getMaxY(
+						from, to));
+			}
+		}
+		yBoundsDataVersion = data;
+		yBoundsViewportVersion = viewport;
+		yBoundsSeriesVersion = seriesVersion;
+	}
 
-		if (title == null)
-		{
-			this.title = "";
+	/**
+	 * assigns a series to a y axis. The series of each axis are scaled to
+	 * their own bounds, the labels of the right axis are shown when a series
+	 * uses it. The series are sliced once per frame for all axes.
+	 * {@link #setManualYAxisBounds(double, double)} and
+	 * {@link #setVerticalLabels(String[])} apply to the left axis.
+	 * 
+	 * @param series
+	 *            a series of this graph, other series are ignored
+	 * @param axis
+	 */
+	public void setYAxis(GraphViewSeries series, YAxis axis) {
+		if (!graphSeries.contains(series)) {
+			// a right axis without series would show empty bounds
+			return;
 		}
-		this.setScreenDensity(context.getResources().getDisplayMetrics().density);
-		graphViewStyle = new GraphViewStyle();
-		graphViewStyle.useTextColorFromTheme(context);
+		if (axis == YAxis.LEFT) {
+			seriesAxes.remove(series);
+		} else {
+			seriesAxes.put(series, axis);
+		}
+		onSeriesListChanged();
+	}
 
-		paint = new Paint();
-		graphSeries = new ArrayList<GraphViewSeries>();
+	/**
+	 * @return the axis the series is scaled to
+	 */
+	public YAxis getYAxis(GraphViewSeries series) {
+		YAxis axis = seriesAxes.get(series);
+		return axis == null ? YAxis.LEFT : axis;
+	}
 
-		viewVerLabels = new VerLabelsView(context);
+	private YAxis yAxis(int idxSeries) {
+		if (seriesAxes.isEmpty()) {
+			return YAxis.LEFT;
+		}
+		return getYAxis(graphSeries.get(idxSeries));
+	}
 
-		graphViewContentView = new GraphViewContentView(context);
-		addView(viewVerLabels);
-		addView(graphViewContentView, new LayoutParams(
-				LayoutParams.FILL_PARENT, LayoutParams.FILL_PARENT, 1));
-		graphViewContentView.bringToFront();
+	private boolean hasRightAxis() {
+		return !seriesAxes.isEmpty();
+	}
 
+	/**
+	 * sets the y projection of an axis for the frame being drawn
+	 */
+	private void setFrameAxis(YAxis axis, double maxY, double minY) {
+		if (maxY == minY) {
+			// if min/max is the same, fake it so that we can render a
+			// line
+			if (maxY == 0) {
+				// if both are zero, change the values to prevent
+				// division
+				// by zero
+				maxY = 1.0d;
+				minY = 0.0d;
+			} else {
+				maxY = maxY * 1.05d;
+				minY = minY * 0.95d;
+			}
+		}
+		frameMinY[axis.ordinal()] = minY;
+		frameDiffY[axis.ordinal()] = maxY - minY;
 	}
 
-	public double getViewportStart() {
-		return this.viewportStart;
+	/**
+	 * generates the horizontal labels if the viewport or the style changed.
+	 * The viewport is snapped to round values right away, that is a bit of
+	 * calendar math. Except for the first labels, the strings are formatted
+	 * on the label thread if possible, and the current labels are drawn
+	 * until the new ones are published, see
+	 * {@link #publishHorlabels(HorlabelsTask)}.
+	 */
+	private void updateHorlabels(float graphwidth) {
+		if (staticHorizontalLabels) {
+			return;
+		}
+		if (horlabels != null
+				&& horlabelsViewportVersion == viewportVersion()
+				&& horlabelsStyleVersion == styleVersion) {
+			return;
+		}
+		if (horlabels == null || !canComputeHorlabelsInBackground()) {
+			horlabels = generateHorlabels(graphwidth);
+			// generating the labels can snap the viewport to round values
+			horlabelsViewportVersion = viewportVersion();
+			horlabelsStyleVersion = styleVersion;
+			return;
+		}
+		// snapped here, so that the content doesn't jump when the labels
+		// arrive
+		formatHorLabels(graphSeries.size());
+		horlabelsViewportVersion = viewportVersion();
+		horlabelsStyleVersion = styleVersion;
+		HorlabelsTask task = horlabelsTask;
+		int numLabels = getGraphViewStyle().getNumHorizontalLabels();
+		if (task == null || task.viewportStart != viewportStart
+				|| task.viewportSize != viewportSize
+				|| task.numLabels != numLabels
+				|| task.styleVersion != styleVersion) {
+			task = new HorlabelsTask(viewportStart, viewportSize, numLabels,
+					styleVersion);
+			horlabelsTask = task;
+			labelExecutor().execute(task);
+		}
 	}
 
-	public double getViewportSize() {
-		return this.viewportSize;
+	/**
+	 * the labels are only computed in the background if they don't depend
+	 * on the app's code (a custom formatter or an overridden formatLabel or
+	 * formatHorLabels must be called on the UI thread) or on other graphs (the labels of a
+	 * viewport group are computed by the first graph)
+	 */
+	private boolean canComputeHorlabelsInBackground() {
+		return customLabelFormatter == null && !formatLabelOverridden
+				&& viewportGroup == null;
 	}
 
-	public void setViewportStart(double viewportStart) {
-		this.viewportStart = viewportStart;
+	/**
+	 * takes over the labels formatted in the background, on the UI thread.
+	 * The viewport was snapped when they were requested. If it moved on
+	 * since, e.g. during a pan, the labels are still closer to it than the
+	 * old ones and are drawn until the labels of the next request arrive.
+	 */
+	private void publishHorlabels(HorlabelsTask task) {
+		if (task != horlabelsTask) {
+			// a newer viewport was requested meanwhile
+			return;
+		}
+		horlabelsTask = null;
+		if (staticHorizontalLabels || task.styleVersion != styleVersion) {
+			return;
+		}
+		horlabels = task.labels;
+		invalidateViews();
 	}
 
-	public void setViewportSize(double viewportSize) {
-		this.viewportSize = viewportSize;
+	/**
+	 * @return true if a subclass formats the labels or snaps the viewport
+	 *         itself
+	 */
+	private boolean overridesFormatLabel() {
+		for (Class<?> c = getClass(); c != GraphView.class; c = c
+				.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("formatLabel", double.class, boolean.class); //NO I18N
+				return true;
+			} catch (NoSuchMethodException e) {
+				// not declared in this class
+			}
+			try {
+				c.getDeclaredMethod("formatHorLabels", int.class); //NO I18N
+				return true;
+			} catch (NoSuchMethodException e) {
+				// not declared in this class
+			}
+		}
+		return false;
 	}
 
-	private GraphViewDataInterface[] _values(int idxSeries) {
-		GraphViewDataInterface[] values = graphSeries.get(idxSeries).values;
-		synchronized (values) {
-			if (viewportStart == 0 && viewportSize == 0) {
-				// all data
-				return values;
-			} else {
-				// viewport
-				List<GraphViewDataInterface> listData = new ArrayList<GraphViewDataInterface>();
-				for (int i = 0; i < values.length; i++) {
-					if (values[i].getX() >= viewportStart) {
-						if (values[i].getX() > viewportStart + viewportSize) {
-							listData.add(values[i]); // one more for nice
-														// scrolling
-							break;
-						} else {
-							listData.add(values[i]);
-						}
-					} else {
-						if (listData.isEmpty()) {
-							listData.add(values[i]);
+	private static synchronized ExecutorService labelExecutor() {
+		if (labelExecutor == null) {
+			labelExecutor = Executors
+					.newSingleThreadExecutor(new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "GraphView labels"); //NO I18N
+							t.setDaemon(true);
+							return t;
 						}
-						listData.set(0, values[i]); // one before, for nice
-													// scrolling
-					}
-				}
+					});
+		}
+		return labelExecutor;
+	}
 
-				return listData.toArray(new GraphViewDataInterface[listData
-						.size()]);
-			}
+	/**
+	 * generates the labels of the right axis if its y bounds or the style
+	 * changed
+	 */
+	private void updateRightVerlabels(float graphheight) {
+		double max = getMaxY(YAxis.RIGHT);
+		double min = getMinY(YAxis.RIGHT);
+		if (rightVerlabels == null
+				|| rightVerlabelsStyleVersion != styleVersion
+				|| max != rightVerlabelsMaxY || min != rightVerlabelsMinY) {
+			rightVerlabels = formatVerlabels(graphheight, min, max);
+			rightVerlabelsMinY = min;
+			rightVerlabelsMaxY = max;
+			rightVerlabelsStyleVersion = styleVersion;
+		}
+	}
+
+	/**
+	 * generates the vertical labels if the y bounds or the style changed
+	 */
+	private void updateVerlabels(float graphheight) {
+		if (staticVerticalLabels) {
+			return;
+		}
+		if (verlabels == null || verlabelsStyleVersion != styleVersion
+				|| getMaxY() != verlabelsMaxY || getMinY() != verlabelsMinY) {
+			verlabels = generateVerlabels(graphheight);
+			verlabelsStyleVersion = styleVersion;
 		}
 	}
 
@@ -682,9 +2053,55 @@ abstract public class GraphView extends LinearLayout {
 	 * @param series
 	 */
 	public void addSeries(GraphViewSeries series) {
-		series.addGraphView(this);
+		register(series);
 		graphSeries.add(series);
-		redrawAll();
+		onSeriesListChanged();
+	}
+
+	/**
+	 * registers the graph once at the series and at the series it is
+	 * computed from, so that it is redrawn when their data changes
+	 */
+	private void register(GraphViewSeries series) {
+		for (GraphViewSeries s = series; s != null; s = sourceOf(s)) {
+			if (!isUsed(s)) {
+				s.addGraphView(this);
+			}
+		}
+	}
+
+	/**
+	 * unregisters the graph from the series and the series it is computed
+	 * from, unless other series of the graph still use them
+	 */
+	private void unregister(GraphViewSeries series) {
+		for (GraphViewSeries s = series; s != null; s = sourceOf(s)) {
+			if (!isUsed(s)) {
+				s.removeGraphView(this);
+				seriesSnapshots.remove(s);
+			}
+		}
+	}
+
+	/**
+	 * @return true if the series is drawn or a drawn series is computed from
+	 *         it
+	 */
+	private boolean isUsed(GraphViewSeries series) {
+		for (int i = 0; i < graphSeries.size(); i++) {
+			for (GraphViewSeries s = graphSeries.get(i); s != null; s
+					= sourceOf(s)) {
+				if (s == series) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static GraphViewSeries sourceOf(GraphViewSeries series) {
+		return series instanceof DerivedSeries ? ((DerivedSeries) series)
+				.getSource() : null;
 	}
 
 	public void setInitialXBounds(double start, double end) {
@@ -695,9 +2112,7 @@ abstract public class GraphView extends LinearLayout {
 	protected void drawHorizontalLabels(Canvas canvas, float border,
 			float horstart, float height, String[] horlabels, float graphwidth) {
 		// horizontal labels + lines
-		Calendar cal1, cal2;
-		cal1 = new GregorianCalendar();
-		cal2 = new GregorianCalendar();
+		String[][] lines = splitHorlabels(horlabels);
 		String prevDate = "";
 		
 		//canvas.translate(0, 15);
@@ -717,7 +2132,7 @@ abstract public class GraphView extends LinearLayout {
 				paint.setTextAlign(Align.LEFT);
 			}
 			paint.setColor(graphViewStyle.getHorizontalLabelsColor());
-			String[] Text = horlabels[i].split("\\n");
+			String[] Text = lines[i];
 
 			if (Text.length > 1) {
 
@@ -738,6 +2153,21 @@ abstract public class GraphView extends LinearLayout {
 		}
 	}
 
+	/**
+	 * @return the lines of the labels. They are split once per labels array,
+	 *         not in every frame.
+	 */
+	private String[][] splitHorlabels(String[] horlabels) {
+		if (splitHorlabelsSource != horlabels) {
+			splitHorlabels = new String[horlabels.length][];
+			for (int i = 0; i < horlabels.length; i++) {
+				splitHorlabels[i] = horlabels[i].split("\\n");
+			}
+			splitHorlabelsSource = horlabels;
+		}
+		return splitHorlabels;
+	}
+
 	protected void drawLegend(Canvas canvas, float height, float width) {
 		float textSize = paint.getTextSize();
 		int spacing = getGraphViewStyle().getLegendSpacing();
@@ -765,15 +2195,15 @@ abstract public class GraphView extends LinearLayout {
 		}
 		float lRight = lLeft + legendWidth;
 		float lBottom = lTop + legendHeight;
-		canvas.drawRoundRect(new RectF(lLeft, lTop, lRight, lBottom), 8, 8,
-				paint);
+		legendRect.set(lLeft, lTop, lRight, lBottom);
+		canvas.drawRoundRect(legendRect, 8, 8, paint);
 
 		for (int i = 0; i < graphSeries.size(); i++) {
 			paint.setColor(graphSeries.get(i).style.color);
-			canvas.drawRect(new RectF(lLeft + border, lTop + border
+			legendRect.set(lLeft + border, lTop + border
 					+ (i * (shapeSize + spacing)), lLeft + border + shapeSize,
-					lTop + border + (i * (shapeSize + spacing)) + shapeSize),
-					paint);
+					lTop + border + (i * (shapeSize + spacing)) + shapeSize);
+			canvas.drawRect(legendRect, paint);
 			if (graphSeries.get(i).description != null) {
 				paint.setColor(Color.WHITE);
 				paint.setTextAlign(Align.LEFT);
@@ -790,6 +2220,29 @@ abstract public class GraphView extends LinearLayout {
 			double diffX, double diffY, float horstart,
 			GraphViewSeriesStyle style);
 
+	/**
+	 * draws the values from (inclusive) - to (exclusive) of a series. The
+	 * default implementation creates data objects for the values and calls
+	 * {@link #drawSeries(Canvas, GraphViewDataInterface[], float, float, float, double, double, double, double, float, GraphViewSeriesStyle)}
+	 * , override it to draw directly from the snapshot.
+	 */
+	protected void drawSeries(Canvas canvas, SeriesSnapshot data, int from,
+			int to, float graphwidth, float graphheight, float border,
+			double minX, double minY, double diffX, double diffY,
+			float horstart, GraphViewSeriesStyle style) {
+		drawSeries(canvas, data.toArray(from, to), graphwidth, graphheight,
+				border, minX, minY, diffX, diffY, horstart, style);
+	}
+
+	/**
+	 * @return the series drawSeries is called for, null if it is called from
+	 *         elsewhere. Caches of the graph types are kept per series, as
+	 *         several series can share a style.
+	 */
+	protected GraphViewSeries getDrawingSeries() {
+		return drawingSeries;
+	}
+
 	/**
 	 * formats the label use #setCustomLabelFormatter or static labels if you
 	 * want custom labels
@@ -803,12 +2256,6 @@ abstract public class GraphView extends LinearLayout {
 	 */
 	@Deprecated
 	protected String formatLabel(double value, boolean isValueX) {
-
-		SimpleDateFormat dateFormat = new SimpleDateFormat("MMM-dd");
-		SimpleDateFormat hourFormat = new SimpleDateFormat("HH:mm");
-		SimpleDateFormat dhFormat = new SimpleDateFormat("MMM-dd \n HH:mm");
-		SimpleDateFormat formatter = new SimpleDateFormat(
-				"yyyy-MM-dd  HH:mm:ss");
 		if (customLabelFormatter != null) {
 			String label = customLabelFormatter.formatLabel(value, isValueX);
 			if (label != null) {
@@ -820,17 +2267,7 @@ abstract public class GraphView extends LinearLayout {
 		double lowestvalue = isValueX ? viewportStart : getMinY();
 
 		if (isValueX) {
-			if ((highestvalue - lowestvalue) >= 1000 * 60 * 60 * 24 * 3) {
-				return dateFormat.format(new Date((long) value));
-			} else if ((highestvalue - lowestvalue >= 1000 * 60 * 60 * 24 * 1)
-					&& (highestvalue - lowestvalue <= 1000 * 60 * 60 * 24 * 3))
-			{
-				return dhFormat.format(new Date((long) value));
-			}
-			else
-			{
-				return hourFormat.format(new Date((long) value));
-			}
+			return timeAxisLabels.format(value, lowestvalue, highestvalue);
 		} else
 		{
 			return "" + (int) value;
@@ -838,18 +2275,15 @@ abstract public class GraphView extends LinearLayout {
 
 	}
 
-	private int calculateNumLabels(long m, long n) {
-		long diff = n - m;
-		for (int l = 8; l >= 3; l--) {
-			if (diff % (l - 1) == 0)
-			{
-				return l;
-			}
+	private String[] generateHorlabels(float graphwidth) {
+		if (viewportGroup != null) {
+			// computed once for the whole group
+			return viewportGroup.getHorlabels(this);
 		}
-		return 0;
+		return computeHorlabels();
 	}
 
-	private String[] generateHorlabels(float graphwidth) {
+	String[] computeHorlabels() {
 		GraphView.this.formatHorLabels(graphSeries.size());
 		int numLabels = getGraphViewStyle().getNumHorizontalLabels() - 1;
 
@@ -865,13 +2299,23 @@ abstract public class GraphView extends LinearLayout {
 	}
 
 	synchronized private String[] generateVerlabels(float graphheight) {
+		double min = getMinY();
+		double max = getMaxY();
+		verlabelsMinY = min;
+		verlabelsMaxY = max;
+		return formatVerlabels(graphheight, min, max);
+	}
+
+	/**
+	 * @return the labels of an axis from min to max, as many as the grid has
+	 *         lines
+	 */
+	private String[] formatVerlabels(float graphheight, double min, double max) {
 		int numLabels = getGraphViewStyle().getNumVerticalLabels() - 1;
 		if (numLabels < 0) {
 			numLabels = (int) (graphheight / (labelTextHeight * 3));
 		}
 		String[] labels = new String[numLabels + 1];
-		double min = getMinY();
-		double max = getMaxY();
 		if (max == min) {
 			// if min/max is the same, fake it so that we can render a line
 			if (max == 0) {
@@ -935,189 +2379,14 @@ abstract public class GraphView extends LinearLayout {
 	 */
 
 	public void formatHorLabels(int formatLabels) {
-		double curStartDate = viewportStart;
-		double curEndDate = viewportStart + viewportSize;
-
-		int calcNumLabels = this.getGraphViewStyle().getNumHorizontalLabels();
-		Calendar tcal1 = new GregorianCalendar();
-		Calendar tcal2 = new GregorianCalendar();
-
-		tcal1.setTimeInMillis((long) curEndDate);
-		if ((curEndDate - curStartDate) >= 13 * 24 * 60 * 60 * 1000) {
-			tcal2.setTimeInMillis((long) curStartDate);
-			this.getGraphViewStyle().setNumHorizontalLabels(7);
-			int day = tcal1.get(Calendar.DAY_OF_MONTH);
-			if (tcal1.get(Calendar.HOUR_OF_DAY) > 12)
-			{
-				day++;
-			}
-			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH), day,
-					0, 0, 0);
-			day = tcal2.get(Calendar.DAY_OF_MONTH);
-			if (tcal2.get(Calendar.HOUR_OF_DAY) > 12)
-			{
-				day++;
-			}
-			tcal2.set(tcal2.get(Calendar.YEAR), tcal2.get(Calendar.MONTH), day,
-					0, 0, 0);
-			calcNumLabels = calculateNumLabels(tcal2.get(Calendar.DAY_OF_YEAR),
-					tcal1.get(Calendar.DAY_OF_YEAR));
-			this.setViewPort(tcal2.getTimeInMillis(), tcal1.getTimeInMillis()
-					- tcal2.getTimeInMillis());
-			this.getGraphViewStyle().setNumHorizontalLabels(calcNumLabels);
-		}
-
-		else if ((curEndDate - curStartDate) >= 3 * 24 * 60 * 60 * 1000) {
-			tcal2.setTimeInMillis((long) curStartDate);
-			int day = tcal1.get(Calendar.DAY_OF_MONTH);
-			if (tcal1.get(Calendar.HOUR_OF_DAY) > 12)
-			{	day++;}
-			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH), day,
-					0, 0, 0);
-			day = tcal2.get(Calendar.DAY_OF_MONTH);
-			if (tcal2.get(Calendar.HOUR_OF_DAY) > 12)
-				{day++;}
-			tcal2.set(tcal2.get(Calendar.YEAR), tcal2.get(Calendar.MONTH), day,
-					0, 0, 0);
-			calcNumLabels = calculateNumLabels(tcal2.get(Calendar.DAY_OF_YEAR),
-					tcal1.get(Calendar.DAY_OF_YEAR));
-			while (calcNumLabels == 0) {
-				tcal2.set(Calendar.DAY_OF_MONTH,
-						tcal2.get(Calendar.DAY_OF_MONTH) + 1);
-				calcNumLabels = calculateNumLabels(
-						tcal2.get(Calendar.DAY_OF_YEAR),
-						tcal1.get(Calendar.DAY_OF_YEAR));
-			}
-			this.getGraphViewStyle().setNumHorizontalLabels(calcNumLabels);
-			this.setViewPort(tcal2.getTimeInMillis(), tcal1.getTimeInMillis()
-					- tcal2.getTimeInMillis());
-		}
-
-		else if ((curEndDate - curStartDate) >= 140 * 60 * 1000) {
-			tcal2.setTimeInMillis((long) curStartDate);
-			int hour = tcal1.get(Calendar.HOUR_OF_DAY);
-			if (tcal1.get(Calendar.MINUTE) > 20)
-				{hour++;}
-			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH),
-					tcal1.get(Calendar.DAY_OF_MONTH), hour, 0, 0);
-			hour = tcal2.get(Calendar.HOUR_OF_DAY);
-			if (tcal2.get(Calendar.MINUTE) > 20)
-				{hour++;}
-			tcal2.set(tcal2.get(Calendar.YEAR), tcal2.get(Calendar.MONTH),
-					tcal2.get(Calendar.DAY_OF_MONTH), hour, 0, 0);
-			calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
-					/ (1000 * 60 * 60), tcal1.getTimeInMillis()
-					/ (1000 * 60 * 60));
-			while (calcNumLabels == 0) {
-				tcal2.set(Calendar.HOUR, tcal2.get(Calendar.HOUR) + 1);
-				calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
-						/ (1000 * 60 * 60), tcal1.getTimeInMillis()
-						/ (1000 * 60 * 60));
-			}
-			this.getGraphViewStyle().setNumHorizontalLabels(calcNumLabels);
-			this.setViewPort(tcal2.getTimeInMillis(), tcal1.getTimeInMillis()
-					- tcal2.getTimeInMillis());
-		}
-
-
-		else if ((curEndDate - curStartDate) >= 1000 * 60 * 60 * 2) {
-			tcal2.setTimeInMillis((long) curStartDate);
-			int roundoff1 = tcal1.get(Calendar.MINUTE) % 15;
-			int roundoff2 = tcal2.get(Calendar.MINUTE) % 15;
-			if (roundoff1 < 7)
-				{roundoff1 = -roundoff1;}
-			else
-				{roundoff1 = 15 - roundoff1;}
-			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH),
-					tcal1.get(Calendar.DAY_OF_MONTH),
-					tcal1.get(Calendar.HOUR_OF_DAY), tcal1.get(Calendar.MINUTE)
-							+ (roundoff1), 0);
-			if (roundoff2 < 7)
-				{roundoff2 = -roundoff2;}
-			else
-				{roundoff2 = 15 - roundoff2;}
-			tcal2.set(Calendar.MINUTE, tcal2.get(Calendar.MINUTE) + (roundoff2));
-			tcal2.set(Calendar.SECOND, 0);
-			calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
-					/ (1000 * 60 * 15), tcal1.getTimeInMillis()
-					/ (1000 * 60 * 15));
-			while (calcNumLabels == 0) {
-				tcal2.setTimeInMillis(tcal2.getTimeInMillis() + 1000 * 60 * 15);
-				calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
-						/ (1000 * 60 * 15), tcal1.getTimeInMillis()
-						/ (1000 * 60 * 15));
-			}
-			this.getGraphViewStyle().setNumHorizontalLabels(calcNumLabels);
-			this.setViewPort(tcal2.getTimeInMillis(), tcal1.getTimeInMillis()
-					- tcal2.getTimeInMillis());
-
-		} else if ((curEndDate - curStartDate) >= 1000 * 60 * 45) {
-			tcal2.setTimeInMillis((long) curStartDate);
-			int roundoff1 = tcal1.get(Calendar.MINUTE) % 15;
-			int roundoff2 = tcal2.get(Calendar.MINUTE) % 15;
-			if (roundoff1 < 7)
-				{roundoff1 = -roundoff1;}
-			else
-				{roundoff1 = 15 - roundoff1;}
-			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH),
-					tcal1.get(Calendar.DAY_OF_MONTH),
-					tcal1.get(Calendar.HOUR_OF_DAY), tcal1.get(Calendar.MINUTE)
-							+ (roundoff1), 0);
-			if (roundoff2 < 7)
-				{roundoff2 = -roundoff2;}
-			else
-				{roundoff2 = 15 - roundoff2;}
-			tcal2.set(Calendar.MINUTE, tcal2.get(Calendar.MINUTE) + (roundoff2));
-			tcal2.set(Calendar.SECOND, 0);
-			calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
-					/ (1000 * 60 * 15), tcal1.getTimeInMillis()
-					/ (1000 * 60 * 15));
-			while (calcNumLabels == 0) {
-				tcal2.setTimeInMillis(tcal2.getTimeInMillis() + 1000 * 60 * 5);
-				calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
-						/ (1000 * 60 * 15), tcal1.getTimeInMillis()
-						/ (1000 * 60 * 15));
-			}
-			this.getGraphViewStyle().setNumHorizontalLabels(calcNumLabels);
-			this.setViewPort(tcal2.getTimeInMillis(), tcal1.getTimeInMillis()
-					- tcal2.getTimeInMillis());
-		}
-
-		else if ((curEndDate - curStartDate) >= 1000 * 60 * 10) {
-			tcal2.setTimeInMillis((long) curStartDate);
-			int roundoff1 = tcal1.get(Calendar.MINUTE) % 5;
-			int roundoff2 = tcal2.get(Calendar.MINUTE) % 5;
-			if (roundoff1 < 3)
-				{roundoff1 = -roundoff1;}
-			else
-				{roundoff1 = 5 - roundoff1;}
-			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH),
-					tcal1.get(Calendar.DAY_OF_MONTH),
-					tcal1.get(Calendar.HOUR_OF_DAY), tcal1.get(Calendar.MINUTE)
-							+ (roundoff1), 0);
-			if (roundoff2 < 3)
-				{roundoff2 = -roundoff2;}
-			else
-				{roundoff2 = 5 - roundoff2;}
-			tcal2.set(Calendar.MINUTE, tcal2.get(Calendar.MINUTE) + (roundoff2));
-			tcal2.set(Calendar.SECOND, 0);
-			calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
-					/ (1000 * 60 * 5), tcal1.getTimeInMillis()
-					/ (1000 * 60 * 5));
-			while (calcNumLabels == 0) {
-				tcal2.setTimeInMillis(tcal2.getTimeInMillis() + 1000 * 60 * 5);
-				calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
-						/ (1000 * 60 * 5), tcal1.getTimeInMillis()
-						/ (1000 * 60 * 5));
-			}
-			this.getGraphViewStyle().setNumHorizontalLabels(calcNumLabels);
-			this.setViewPort(tcal2.getTimeInMillis(), tcal1.getTimeInMillis()
-					- tcal2.getTimeInMillis());
+		timeAxisLabels.snap(viewportStart, viewportSize, getGraphViewStyle()
+				.getNumHorizontalLabels());
+		if (timeAxisLabels.snappedStart != viewportStart
+				|| timeAxisLabels.snappedSize != viewportSize) {
+			setViewPort(timeAxisLabels.snappedStart, timeAxisLabels.snappedSize);
 		}
-
-
-		this.getGraphViewStyle().setNumHorizontalLabels(calcNumLabels);
-		this.getGraphViewStyle().setNumVerticalLabels(6);
+		getGraphViewStyle().setNumHorizontalLabels(timeAxisLabels.numLabels);
+		getGraphViewStyle().setNumVerticalLabels(6);
 	}
 
 	protected double getMaxX(boolean ignoreViewport) {
@@ -1146,27 +2415,43 @@ abstract public class GraphView extends LinearLayout {
 	}
 
 	/**
-	 * returns the maximal Y value of all data.
+	 * returns the maximal Y value of the series of the left axis.
 	 * 
 	 * warning: only override this, if you really know want you're doing!
 	 */
 	protected double getMaxY() {
+		if (animationSnapshots != null) {
+			return animationMaxY[YAxis.LEFT.ordinal()];
+		}
 
 		double largest;
 		if (manualYAxis) {
 			largest = manualMaxYValue;
 		} else {
-			largest = Integer.MIN_VALUE;
-			for (int i = 0; i < graphSeries.size(); i++) {
-				GraphViewDataInterface[] values = _values(i);
-				for (int ii = 0; ii < values.length; ii++)
-				{
-					if (values[ii].getY() > largest)
-						{largest = values[ii].getY();}
-				}
-			}
+			updateYBounds();
+			largest = yBoundsMax[YAxis.LEFT.ordinal()];
+		}
+		return roundMaxY(largest);
+	}
+
+	/**
+	 * returns the maximal Y value of the series of an axis
+	 */
+	protected double getMaxY(YAxis axis) {
+		if (axis == YAxis.LEFT) {
+			return getMaxY();
+		}
+		if (animationSnapshots != null) {
+			return animationMaxY[axis.ordinal()];
 		}
+		updateYBounds();
+		return roundMaxY(yBoundsMax[axis.ordinal()]);
+	}
 
+	/**
+	 * rounds the largest value up to a value with few digits
+	 */
+	private static double roundMaxY(double largest) {
 		int nofdig = 0;
 		int tval = (int) largest;
 		if (largest < 5)
@@ -1231,28 +2516,37 @@ abstract public class GraphView extends LinearLayout {
 	}
 
 	/**
-	 * returns the minimal Y value of all data.
+	 * returns the minimal Y value of the series of the left axis.
 	 * 
 	 * warning: only override this, if you really know want you're doing!
 	 */
 	protected double getMinY() {
+		if (animationSnapshots != null) {
+			return animationMinY[YAxis.LEFT.ordinal()];
+		}
 		double smallest;
 		if (manualYAxis) {
 			smallest = manualMinYValue;
 		} else {
-			smallest = Integer.MAX_VALUE;
-			for (int i = 0; i < graphSeries.size(); i++) {
-				GraphViewDataInterface[] values = _values(i);
-				for (int ii = 0; ii < values.length; ii++)
-				{
-					if (values[ii].getY() < smallest)
-					{
-						smallest = values[ii].getY();
-					}
-				}
-			}
+			updateYBounds();
+			smallest = yBoundsMin[YAxis.LEFT.ordinal()];
 		}
-		return 0;
+		// the y axis starts at zero unless there are negative values
+		return Math.min(0, smallest);
+	}
+
+	/**
+	 * returns the minimal Y value of the series of an axis
+	 */
+	protected double getMinY(YAxis axis) {
+		if (axis == YAxis.LEFT) {
+			return getMinY();
+		}
+		if (animationSnapshots != null) {
+			return animationMinY[axis.ordinal()];
+		}
+		updateYBounds();
+		return Math.min(0, yBoundsMin[axis.ordinal()]);
 	}
 
 	public boolean isDisableTouch() {
@@ -1269,21 +2563,38 @@ abstract public class GraphView extends LinearLayout {
 
 	/**
 	 * forces graphview to invalide all views and caches. Normally there is no
-	 * need to call this manually.
+	 * need to call this manually, the caches are computed again when the
+	 * style, the viewport or the data they depend on changed.
 	 */
 	public void redrawAll() {
-		if (!staticVerticalLabels)
-			{verlabels = null;}
-		if (!staticHorizontalLabels)
-			{horlabels = null;}
-		numberformatter[0] = null;
-		numberformatter[1] = null;
-		labelTextHeight = null;
-		horLabelTextWidth = null;
-		verLabelTextWidth = null;
+		styleVersion++;
+		onSeriesListChanged();
+	}
+
+	/**
+	 * called when series were added or removed. The caches that depend on
+	 * the series are computed again, the labels only if the y bounds
+	 * changed.
+	 */
+	private void onSeriesListChanged() {
+		seriesVersion++;
+		dataVersion++;
+		versionedSnapshots = new SeriesSnapshot[0];
+		sliceFrom = new int[0];
+		viewRightLabels.setVisibility(hasRightAxis() ? View.VISIBLE
+				: View.GONE);
+		if (animationSnapshots != null) {
+			// the series changed during an animation, slice them again
+			animationSnapshots = null;
+			beginViewportAnimation(animationRangeStart, animationRangeEnd);
+		}
+		invalidateViews();
+	}
 
+	private void invalidateViews() {
 		invalidate();
 		viewVerLabels.invalidate();
+		viewRightLabels.invalidate();
 		graphViewContentView.invalidate();
 	}
 
@@ -1291,13 +2602,14 @@ abstract public class GraphView extends LinearLayout {
 	 * removes all series
 	 */
 	public void removeAllSeries() {
-		for (GraphViewSeries s : graphSeries) {
-			s.removeGraphView(this);
-		}
 		while (!graphSeries.isEmpty()) {
-			graphSeries.remove(0);
+			unregister(graphSeries.remove(graphSeries.size() - 1));
 		}
-		redrawAll();
+		seriesSnapshots.clear();
+		seriesAxes.clear();
+		frameCaches.clear();
+		drawnSnapshots = null;
+		onSeriesListChanged();
 	}
 
 	/**
@@ -1307,9 +2619,12 @@ abstract public class GraphView extends LinearLayout {
 	 *            series to remove
 	 */
 	public void removeSeries(GraphViewSeries series) {
-		series.removeGraphView(this);
 		graphSeries.remove(series);
-		redrawAll();
+		unregister(series);
+		seriesAxes.remove(series);
+		frameCaches.remove(series);
+		drawnSnapshots = null;
+		onSeriesListChanged();
 	}
 
 	/**
@@ -1337,19 +2652,13 @@ abstract public class GraphView extends LinearLayout {
 		double max = getMaxX(true);
 		viewportStart = max - viewportSize;
 
-		// don't clear labels width/height cache
-		// so that the display is not flickering
-		if (!staticVerticalLabels)
-		{
-			verlabels = null;
-		}
-		if (!staticHorizontalLabels)
-		{
-			horlabels = null;
+		// the labels follow the viewport, the labels width/height cache is
+		// kept so that the display is not flickering
+		invalidateViews();
+		if (viewportGroup != null) {
+			viewportGroup.onMoveGesture(this, viewportStart, viewportStart
+					+ viewportSize);
 		}
-		invalidate();
-		viewVerLabels.invalidate();
-		graphViewContentView.invalidate();
 	}
 
 	/**
@@ -1376,6 +2685,7 @@ abstract public class GraphView extends LinearLayout {
 	public void setGraphViewStyle(GraphViewStyle style) {
 		graphViewStyle = style;
 		labelTextHeight = null;
+		styleVersion++;
 	}
 
 	/**
@@ -1472,7 +2782,16 @@ abstract public class GraphView extends LinearLayout {
 									viewportSize = maxX - viewportStart;
 								}
 							}
-							redrawAll();
+							lastScaleTime = SystemClock.uptimeMillis();
+							removeCallbacks(gestureSettled);
+							postDelayed(gestureSettled, GESTURE_SETTLE_MS);
+							// the labels follow the viewport
+							invalidateViews();
+							if (viewportGroup != null) {
+								viewportGroup.onMoveGesture(GraphView.this,
+										viewportStart, viewportStart
+												+ viewportSize);
+							}
 							return true;
 						}
 					});
@@ -1529,6 +2848,102 @@ abstract public class GraphView extends LinearLayout {
 		}
 		viewportStart = start;
 		viewportSize = size;
+		if (viewportGroup != null) {
+			viewportGroup.setViewPort(this, start, size);
+		}
+	}
+
+	/**
+	 * saves the viewport and the data of the {@link SnapshotSeries} in the
+	 * binary format of {@link SnapshotCodec}, e.g. for
+	 * onSaveInstanceState or a disk cache. Other series are skipped, the app
+	 * creates them again.
+	 * 
+	 * @return the state
+	 */
+	public byte[] saveState() {
+		// read every snapshot once, producers may publish meanwhile
+		SeriesSnapshot[] snapshots = new SeriesSnapshot[graphSeries.size()];
+		int size = STATE_HEADER_SIZE;
+		for (int i = 0; i < snapshots.length; i++) {
+			GraphViewSeries series = graphSeries.get(i);
+			size += 8;
+			if (series instanceof SnapshotSeries) {
+				snapshots[i] = ((SnapshotSeries) series).getSnapshot();
+				size += SnapshotCodec.encodedSize(snapshots[i]);
+			}
+		}
+		byte[] state = new byte[size];
+		ByteBuffer out = ByteBuffer.wrap(state).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(STATE_MAGIC);
+		out.putShort((short) SnapshotCodec.VERSION);
+		out.putShort((short) 0);
+		out.putDouble(viewportStart);
+		out.putDouble(viewportSize);
+		out.putDouble(initialStart);
+		out.putDouble(initialEnd);
+		out.putInt(snapshots.length);
+		out.putInt(0);
+		for (SeriesSnapshot data : snapshots) {
+			out.putInt(data != null ? 1 : 0);
+			out.putInt(0);
+			if (data != null) {
+				SnapshotCodec.encode(data, out);
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * restores a state of {@link #saveState()}. The data is restored into the
+	 * {@link SnapshotSeries} at the same positions, so the series have to be
+	 * added before.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the state is not valid
+	 */
+	public void restoreState(byte[] state) {
+		ByteBuffer in = ByteBuffer.wrap(state).order(ByteOrder.LITTLE_ENDIAN);
+		if (state.length < STATE_HEADER_SIZE || in.getInt() != STATE_MAGIC) {
+			throw new IllegalArgumentException("no graph state"); //NO I18N
+		}
+		int version = in.getShort();
+		if (version > SnapshotCodec.VERSION) {
+			throw new IllegalArgumentException("unsupported version " //NO I18N
+					+ version);
+		}
+		in.getShort();
+		double start = in.getDouble();
+		double size = in.getDouble();
+		double restoredInitialStart = in.getDouble();
+		double restoredInitialEnd = in.getDouble();
+		int count = in.getInt();
+		in.getInt();
+		if (count < 0 || count > in.remaining() / 8) {
+			throw new IllegalArgumentException("truncated graph state"); //NO I18N
+		}
+		// decode all series first, a broken state leaves the graph as it was
+		SeriesSnapshot[] snapshots = new SeriesSnapshot[count];
+		for (int i = 0; i < count; i++) {
+			if (in.remaining() < 8) {
+				throw new IllegalArgumentException("truncated graph state"); //NO I18N
+			}
+			boolean hasData = in.getInt() != 0;
+			in.getInt();
+			if (hasData) {
+				snapshots[i] = SnapshotCodec.decode(in);
+			}
+		}
+		initialStart = restoredInitialStart;
+		initialEnd = restoredInitialEnd;
+		for (int i = 0; i < count && i < graphSeries.size(); i++) {
+			if (snapshots[i] != null
+					&& graphSeries.get(i) instanceof SnapshotSeries) {
+				((SnapshotSeries) graphSeries.get(i)).resetData(snapshots[i]);
+			}
+		}
+		setViewPort(start, size);
+		redrawAll();
 	}
 
 	public float getScreenDensity() {
@@ -1537,6 +2952,7 @@ abstract public class GraphView extends LinearLayout {
 
 	public void setScreenDensity(float screenDensity) {
 		this.screenDensity = screenDensity;
+		styleVersion++;
 	}
 	
 	protected int dpToPx(float dp)
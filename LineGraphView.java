@@ -22,6 +22,10 @@
 
 package com.jjoe64.graphview;
 
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -29,9 +33,7 @@ import android.graphics.LinearGradient;
 import android.graphics.Paint;
 import android.graphics.Paint.Style;
 import android.graphics.Path;
-import android.graphics.PathEffect;
 import android.graphics.Shader;
-import android.graphics.Shader.TileMode;
 import android.util.AttributeSet;
 
 import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
@@ -40,7 +42,110 @@ import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
  * Line Graph View. This draws a line chart.
  */
 public class LineGraphView extends GraphView {
+	/**
+	 * the screen coordinates of the lines and the area under them. They are
+	 * built once per slice and projection and drawn as long as neither
+	 * changes, e.g. while only the indicators move.
+	 */
+	private static final class LineGeometry {
+		final Path fill = new Path();
+		float[] lines = new float[64];
+		int lineCount;
+		float[] points = new float[32];
+		int pointCount;
+		int lastDraw;
+
+		private SeriesSnapshot data;
+		private int from, to;
+		private float graphwidth, graphheight, border, horstart;
+		private double minX, minY, diffX, diffY;
+
+		boolean matches(SeriesSnapshot data, int from, int to, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart) {
+			return this.data == data && this.from == from && this.to == to
+					&& this.graphwidth == graphwidth && this.graphheight == graphheight
+					&& this.border == border && this.horstart == horstart
+					&& this.minX == minX && this.minY == minY
+					&& this.diffX == diffX && this.diffY == diffY;
+		}
+
+		/**
+		 * projects the values. The values between two gaps form one run, its
+		 * segments go to the lines and it adds one closed contour to the fill.
+		 * A run of a single value is a segment of length 0, the round cap of
+		 * the paint draws it as a dot.
+		 */
+		void build(SeriesSnapshot data, int from, int to, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, float baseline) {
+			this.data = data;
+			this.from = from;
+			this.to = to;
+			this.graphwidth = graphwidth;
+			this.graphheight = graphheight;
+			this.border = border;
+			this.horstart = horstart;
+			this.minX = minX;
+			this.minY = minY;
+			this.diffX = diffX;
+			this.diffY = diffY;
+
+			int n = to - from;
+			if (lines.length < n * 4) {
+				lines = new float[n * 4];
+			}
+			if (points.length < n * 2) {
+				points = new float[n * 2];
+			}
+			fill.rewind();
+			lineCount = 0;
+			pointCount = 0;
+			int runStart = from;
+			while (runStart < to) {
+				int gap = data.nextGap(runStart, to);
+				if (gap - runStart == 1) {
+					addPoint(data, runStart);
+				} else if (gap > runStart) {
+					addRun(data, runStart, gap, baseline);
+				}
+				runStart = gap + 1;
+			}
+		}
+
+		private void addPoint(SeriesSnapshot data, int index) {
+			int p = pointCount;
+			data.project(index, index + 1, minX, graphwidth / diffX, horstart + 1, minY, -graphheight / diffY, border + graphheight, points, p);
+			pointCount += 2;
+			lines[lineCount++] = points[p];
+			lines[lineCount++] = points[p + 1];
+			lines[lineCount++] = points[p];
+			lines[lineCount++] = points[p + 1];
+		}
+
+		private void addRun(SeriesSnapshot data, int from, int to, float baseline) {
+			// the snapshot projects the whole run in one bulk loop
+			int first = pointCount;
+			data.project(from, to, minX, graphwidth / diffX, horstart + 1, minY, -graphheight / diffY, border + graphheight, points, first);
+			pointCount += 2 * (to - from);
+			fill.moveTo(points[first], points[first + 1]);
+			for (int p = first + 2; p < pointCount; p += 2) {
+				lines[lineCount++] = points[p - 2];
+				lines[lineCount++] = points[p - 1];
+				lines[lineCount++] = points[p];
+				lines[lineCount++] = points[p + 1];
+				fill.lineTo(points[p], points[p + 1]);
+			}
+			// end / close path
+			fill.lineTo(points[pointCount - 2], baseline);
+			fill.lineTo(points[first], baseline);
+			fill.close();
+		}
+	}
+
 	private final Paint paintBackground;
+	private final Paint paintDataPoints;
+	private final Paint fillPaint = new Paint();
+	private float fillHeight;
+	// by series, or by style if drawSeries is called for no series
+	private final Map<Object, LineGeometry> geometries = new IdentityHashMap<Object, LineGeometry>();
+	private int drawCount;
 	private boolean drawBackground;
 	private boolean drawDataPoints;
 	private float dataPointsRadius = 7f;
@@ -51,7 +156,8 @@ public class LineGraphView extends GraphView {
 		paintBackground.setColor(Color.rgb(20, 40, 60));
 		paintBackground.setStrokeWidth(4);
 		paintBackground.setAlpha(128);
-		
+		paintDataPoints = new Paint();
+		paintDataPoints.setColor(Color.RED);
 	}
 
 	public LineGraphView(Context context, String title) {
@@ -60,105 +166,95 @@ public class LineGraphView extends GraphView {
 		paintBackground.setColor(Color.rgb(20, 40, 60));
 		paintBackground.setStrokeWidth(4);
 		paintBackground.setAlpha(128);
+		paintDataPoints = new Paint();
+		paintDataPoints.setColor(Color.RED);
 	}
 
 
 	@Override
 	public void drawSeries(Canvas canvas, GraphViewDataInterface[] values, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
-		double lastEndY = 0;
-		double lastEndX = 0;
-		boolean startPath=true;
-		int[] colors={0xFF034672,0xfff4f4f4};
-		int[] colorsTransparent={0x00000000,0x00000000};
-		Paint p = null;
-		p = new Paint();
+		drawSeries(canvas, new ObjectArraySnapshot(values), 0, values.length, graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, style);
+	}
+
+	@Override
+	protected void drawSeries(Canvas canvas, SeriesSnapshot data, int from, int to, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
 		// draw data
 		paint.setStrokeWidth(5);
 		
 		if(style.color!=Color.RED)
 		{
 		paint.setStyle(Style.STROKE);
-		p.setShader(new LinearGradient(0,0,0,graphheight,colors,null,Shader.TileMode.CLAMP));
-		}
-		else
-		{
-			p.setShader(new LinearGradient(0, 0, 0, graphheight, colorsTransparent, null, TileMode.CLAMP));
-		}
-		paint.setAntiAlias(true);
-		
-		Path bgPath = new Path();
-		if (drawBackground) {
-			bgPath = new Path();
 		}
-
-		lastEndY = 0;
-		lastEndX = 0;
-		float firstX = 0;
+		// no anti-aliasing and fill while a gesture needs fast frames
+		boolean full = getRenderQuality() == RenderQuality.FULL;
+		paint.setAntiAlias(full);
 		paint.setColor(style.color);
 		paint.setStrokeWidth(dpToPx(1.5f));
-		int t=0;
-		for (int i = 0; i < values.length; i++) {
-			if(values[i].getY()<0)
-			{
-				if((lastEndX!=0&&firstX!=0))
-				{
-				bgPath.lineTo((float) lastEndX, graphheight + border);
-				bgPath.lineTo(firstX, graphheight + border);
-				bgPath.close();
-				}
-				canvas.drawPath(bgPath, p);
-				startPath=false;
-				t=0;
-				//i++;
-				continue;
+
+		LineGeometry geometry = geometry(style);
+		if (!geometry.matches(data, from, to, graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart)) {
+			geometry.build(data, from, to, graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, graphheight + border - dpToPx(1));
+		}
+
+		// draw data point
+		if (drawDataPoints) {
+			float[] points = geometry.points;
+			for (int i = 0; i < geometry.pointCount; i += 2) {
+				canvas.drawCircle(points[i], points[i + 1], dataPointsRadius, paintDataPoints);
 			}
-			double valY = values[i].getY() - minY;
-			double ratY = valY / diffY;
-			double y = graphheight * ratY;
-			p.setPathEffect(new PathEffect());
-			double valX = values[i].getX() - minX;
-			double ratX = valX / diffX;
-			double x = graphwidth * ratX;
-			if (t > 0) {
-				float startX = (float) lastEndX + (horstart + 1);	  	
-				float startY = (float) (border - lastEndY) + graphheight;
-				float endX = (float) x + (horstart + 1);
-				float endY = (float) (border - y) + graphheight;
-				Paint tp=new Paint();
-				tp.setColor(Color.RED);
-				// draw data point
-				if (drawDataPoints) {
-					canvas.drawCircle(startX, startY, dataPointsRadius,tp );
-				}
-				canvas.drawLine(startX, startY, endX, endY, paint);
-				if (bgPath != null) {
-					if (t==1) {
-						firstX = startX;
-						bgPath=new Path();
-						//paint.setColor(style.color);
-						startPath=true;
-						bgPath.moveTo(startX, startY);
-					}
-					//bgPath.setFillType(ft);
-					bgPath.lineTo(endX, endY);
+		}
+		canvas.drawLines(geometry.lines, 0, geometry.lineCount, paint);
+		// the red series have a transparent fill, there is nothing to draw
+		if (full && style.color != Color.RED && !geometry.fill.isEmpty()) {
+			canvas.drawPath(geometry.fill, fillPaint(graphheight));
+		}
+	}
+
+	/**
+	 * @return the cached geometry of the series being drawn. Entries of
+	 *         series that were not drawn for a while are dropped.
+	 */
+	private LineGeometry geometry(GraphViewSeriesStyle style) {
+		drawCount++;
+		Object key = getDrawingSeries() != null ? getDrawingSeries() : style;
+		LineGeometry geometry = geometries.get(key);
+		if (geometry == null) {
+			// every series is drawn once per frame, so entries older than
+			// the number of entries belong to removed series
+			Iterator<LineGeometry> it = geometries.values().iterator();
+			while (it.hasNext()) {
+				if (drawCount - it.next().lastDraw > geometries.size()) {
+					it.remove();
 				}
 			}
-			lastEndY = y;
-			lastEndX = x;
-			t++;
+			geometry = new LineGeometry();
+			geometries.put(key, geometry);
 		}
-		
-		if (bgPath != null&&startPath==true&&bgPath.isEmpty()==false) {
-			// end / close path
-			if(lastEndX!=0&&firstX!=0)
-			{
-			bgPath.lineTo((float) lastEndX, graphheight + border-dpToPx(1));
-			bgPath.lineTo(firstX, graphheight + border-dpToPx(1));
-			}
-			
-			bgPath.close();
-			canvas.drawPath(bgPath, p);
+		geometry.lastDraw = drawCount;
+		return geometry;
+	}
+
+	@Override
+	protected long getCacheBytes() {
+		// the fill paths are not counted
+		long bytes = 0;
+		for (LineGeometry geometry : geometries.values()) {
+			bytes += 4L * geometry.lines.length + 4L * geometry.points.length;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return the paint for the area under the lines, the gradient is only
+	 *         created when the height changed
+	 */
+	private Paint fillPaint(float graphheight) {
+		if (fillPaint.getShader() == null || fillHeight != graphheight) {
+			int[] colors={0xFF034672,0xfff4f4f4};
+			fillPaint.setShader(new LinearGradient(0,0,0,graphheight,colors,null,Shader.TileMode.CLAMP));
+			fillHeight = graphheight;
 		}
+		return fillPaint;
 	}
 
 	public int getBackgroundColor() {
@@ -0,0 +1,118 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.util.Arrays;
+
+/**
+ * snapshot view of the values array of a plain {@link GraphViewSeries}. The
+ * array is not copied, GraphViewSeries replaces it on every change.
+ *
+ * For compatibility, negative y values are gaps in plain series.
+ */
+final class ObjectArraySnapshot extends SeriesSnapshot {
+	final GraphViewDataInterface[] values;
+
+	ObjectArraySnapshot(GraphViewDataInterface[] values) {
+		this.values = values;
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	@Override
+	public long getRetainedBytes() {
+		// a reference and a data object with two doubles per value
+		return 36L * values.length;
+	}
+
+	@Override
+	public double getX(int index) {
+		return values[index].getX();
+	}
+
+	@Override
+	public double getY(int index) {
+		return values[index].getY();
+	}
+
+	@Override
+	public SeriesSnapshot append(double x, double y) {
+		return ArraySeriesSnapshot.copyOf(values).append(x, y);
+	}
+
+	@Override
+	public SeriesSnapshot removeFirst(int count) {
+		count = Math.min(count, values.length);
+		ObjectArraySnapshot next = new ObjectArraySnapshot(Arrays.copyOfRange(
+				values, count, values.length));
+		next.inheritStatistics(this, count);
+		return next;
+	}
+
+	@Override
+	public int nextGap(int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (isGap(values[i].getY())) {
+				return i;
+			}
+		}
+		return to;
+	}
+
+	/**
+	 * the gaps don't count for the bounds
+	 */
+	@Override
+	RangeBounds computeBounds(int from, int to) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			double y = values[i].getY();
+			if (isGap(y)) {
+				continue;
+			}
+			if (y < min) {
+				min = y;
+			}
+			if (y > max) {
+				max = y;
+			}
+		}
+		return new RangeBounds(from, to, min, max);
+	}
+
+	private static boolean isGap(double y) {
+		return y < 0 || Double.isNaN(y);
+	}
+
+	@Override
+	GraphViewDataInterface[] toArray(int from, int to) {
+		if (from == 0 && to == values.length) {
+			return values;
+		}
+		return Arrays.copyOfRange(values, from, to);
+	}
+}
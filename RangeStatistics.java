@@ -0,0 +1,89 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+/**
+ * statistics of the values of a series in a range. The gaps don't count.
+ *
+ * The object is filled by the queries, so it can be reused on every touch
+ * move.
+ */
+public class RangeStatistics {
+	private int count;
+	private double sum;
+	private double sumOfSquares;
+	private double min;
+	private double max;
+
+	void set(int count, double sum, double sumOfSquares, double min,
+			double max) {
+		this.count = count;
+		this.sum = sum;
+		this.sumOfSquares = sumOfSquares;
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * @return number of values
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	public double getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return smallest value, NaN if there are no values
+	 */
+	public double getMin() {
+		return min;
+	}
+
+	/**
+	 * @return largest value, NaN if there are no values
+	 */
+	public double getMax() {
+		return max;
+	}
+
+	/**
+	 * @return average, NaN if there are no values
+	 */
+	public double getAverage() {
+		return count == 0 ? Double.NaN : sum / count;
+	}
+
+	/**
+	 * @return population standard deviation, NaN if there are no values
+	 */
+	public double getStandardDeviation() {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		double average = sum / count;
+		return Math.sqrt(Math.max(0, sumOfSquares / count - average * average));
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.os.Build;
+
+/**
+ * display list of the parts of a view that only change with the labels, the
+ * style or the size, e.g. the grid and the label texts. They are recorded
+ * into a {@link Picture} once and replayed in the following frames.
+ *
+ * The content is identified by a key: the label arrays (new arrays are
+ * generated whenever the viewport changes the labels), the style version of
+ * the graph and the size. While the key changes every frame, e.g. during a
+ * pan, recording would only add work, so the layer is drawn directly until
+ * the key is the same in two frames in a row.
+ */
+final class RecordedLayer {
+	/**
+	 * draws the content of the layer
+	 */
+	interface Painter {
+		void paintLayer(Canvas canvas);
+	}
+
+	private final Painter painter;
+	private Picture picture;
+	private boolean recorded;
+	private Object[] labels = new Object[2];
+	private int styleVersion = -1;
+	private int width = -1;
+	private int height = -1;
+
+	RecordedLayer(Painter painter) {
+		this.painter = painter;
+	}
+
+	/**
+	 * draws the layer, from the display list if the key is unchanged
+	 */
+	void draw(Canvas canvas, Object labels0, Object labels1, int styleVersion,
+			int width, int height) {
+		boolean same = labels[0] == labels0 && labels[1] == labels1
+				&& this.styleVersion == styleVersion && this.width == width
+				&& this.height == height;
+		if (!same) {
+			labels[0] = labels0;
+			labels[1] = labels1;
+			this.styleVersion = styleVersion;
+			this.width = width;
+			this.height = height;
+			recorded = false;
+			painter.paintLayer(canvas);
+			return;
+		}
+		if (!canReplay(canvas) || width <= 0 || height <= 0) {
+			painter.paintLayer(canvas);
+			return;
+		}
+		if (!recorded) {
+			if (picture == null) {
+				picture = new Picture();
+			}
+			Canvas recording = picture.beginRecording(width, height);
+			painter.paintLayer(recording);
+			picture.endRecording();
+			recorded = true;
+		}
+		canvas.drawPicture(picture);
+	}
+
+	/**
+	 * drops the display list
+	 */
+	void clear() {
+		picture = null;
+		recorded = false;
+		labels[0] = null;
+		labels[1] = null;
+	}
+
+	/**
+	 * pictures can't be drawn on hardware accelerated canvases before
+	 * Android 6.0
+	 */
+	private static boolean canReplay(Canvas canvas) {
+		return !canvas.isHardwareAccelerated()
+				|| Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+	}
+}
@@ -0,0 +1,314 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.util.Calendar;
+
+/**
+ * the values of a time series in an x range, rolled up into buckets of a
+ * minute, an hour or a day. The y value of a bucket is the average, the
+ * min/max and the count are available as well. Empty buckets are left out,
+ * a gap of the source between two buckets is kept.
+ *
+ * The buckets are aggregated by scanning their values once, no index of the
+ * source is built. {@link #update(SeriesSnapshot)} takes the buckets of the
+ * previous data over, so a streaming series only scans the values that
+ * arrived since the last frame.
+ */
+public final class RollupSnapshot extends SeriesSnapshot {
+	public static final long MINUTE = 60 * 1000;
+	public static final long HOUR = 60 * MINUTE;
+	public static final long DAY = 24 * HOUR;
+
+	/**
+	 * the bucket widths, from fine to coarse
+	 */
+	static final long[] LEVELS = { MINUTE, HOUR, DAY };
+
+	final SeriesSnapshot source;
+	private final long width;
+	private final double fromX;
+	private final double toX;
+	private final double[] x;
+	private final double[] y;
+	private final double[] min;
+	private final double[] max;
+	private final int[] count;
+	private final int size;
+
+	private RollupSnapshot(SeriesSnapshot source, long width, double fromX,
+			double toX, RollupSnapshot previous) {
+		this.source = source;
+		this.width = width;
+		this.fromX = fromX;
+		this.toX = toX;
+		Calendar calendar = width == DAY ? Calendar.getInstance() : null;
+		int from = source.lowerIndex(bucketStart(fromX, width, calendar));
+		int to = source.upperIndex(bucketEnd(bucketStart(toX, width, calendar),
+				width, calendar));
+		// at most a bucket and a gap per value. The days around a daylight
+		// saving change are shorter than DAY, count them twice
+		long shortest = width == DAY ? width / 2 : width;
+		int capacity = (int) Math.min(2L * (to - from), 2L * ((long) ((toX
+				- fromX) / shortest) + 2));
+		x = new double[capacity];
+		y = new double[capacity];
+		min = new double[capacity];
+		max = new double[capacity];
+		count = new int[capacity];
+		size = previous == null ? build(from, to, 0, calendar) : update(
+				previous, from, to, calendar);
+	}
+
+	/**
+	 * rolls up the values of the buckets touching the x range fromX - toX
+	 *
+	 * @param width
+	 *            bucket width, the days start at midnight of the default
+	 *            time zone
+	 */
+	static RollupSnapshot build(SeriesSnapshot source, long width,
+			double fromX, double toX) {
+		return new RollupSnapshot(source, width, fromX, toX, null);
+	}
+
+	/**
+	 * rolls up newer data of the source for the same x range. If the data
+	 * was created from the source by appending and removing values, the
+	 * buckets in between are taken over and only the first and the last ones
+	 * are computed again. Otherwise all buckets are.
+	 */
+	RollupSnapshot update(SeriesSnapshot data) {
+		return new RollupSnapshot(data, width, fromX, toX, data
+				.isSuccessorOf(source) ? this : null);
+	}
+
+	/**
+	 * @param calendar
+	 *            for day buckets, to find midnight, null otherwise
+	 */
+	private static double bucketStart(double x, long width, Calendar calendar) {
+		if (calendar == null) {
+			return Math.floor(x / width) * width;
+		}
+		calendar.setTimeInMillis((long) Math.floor(x));
+		calendar.set(Calendar.HOUR_OF_DAY, 0);
+		calendar.set(Calendar.MINUTE, 0);
+		calendar.set(Calendar.SECOND, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		return calendar.getTimeInMillis();
+	}
+
+	/**
+	 * @return start of the bucket after the one starting at start. Days are
+	 *         23 or 25 hours long when the daylight saving time changes.
+	 */
+	private static double bucketEnd(double start, long width, Calendar calendar) {
+		if (calendar == null) {
+			return start + width;
+		}
+		calendar.setTimeInMillis((long) start);
+		calendar.add(Calendar.DAY_OF_MONTH, 1);
+		return calendar.getTimeInMillis();
+	}
+
+	/**
+	 * takes over the buckets of previous that neither lost nor gained values
+	 *
+	 * @return number of buckets
+	 */
+	private int update(RollupSnapshot previous, int from, int to,
+			Calendar calendar) {
+		// the values before the bucket of the first value were removed
+		double keepFrom = source.size() == 0 ? Double.POSITIVE_INFINITY
+				: bucketEnd(bucketStart(source.getX(0), width, calendar),
+						width, calendar);
+		// the values were appended to the bucket of the last value
+		int last = previous.source.size() - 1;
+		double keepTo = last < 0 ? Double.NEGATIVE_INFINITY : bucketStart(
+				previous.source.getX(last), width, calendar);
+		int n = build(from, Math.max(from, Math.min(to, source
+				.lowerIndex(keepFrom))), 0, calendar);
+		// the buckets and their gaps are in x order, a bucket's entries are
+		// at its start or after it
+		int i = previous.lowerIndex(keepFrom);
+		int end = previous.lowerIndex(keepTo);
+		if (i < end && Double.isNaN(previous.y[i])
+				&& (n == 0 || Double.isNaN(y[n - 1]))) {
+			// nothing left to interrupt before the gap
+			i++;
+		}
+		int kept = Math.max(0, end - i);
+		System.arraycopy(previous.x, i, x, n, kept);
+		System.arraycopy(previous.y, i, y, n, kept);
+		System.arraycopy(previous.min, i, min, n, kept);
+		System.arraycopy(previous.max, i, max, n, kept);
+		System.arraycopy(previous.count, i, count, n, kept);
+		n += kept;
+		return build(Math.max(from, Math.min(to, source.lowerIndex(Math.max(
+				keepFrom, keepTo)))), to, n, calendar);
+	}
+
+	/**
+	 * rolls up the values of the index range from - to, which starts and
+	 * ends at bucket boundaries, after the first n buckets. The values are
+	 * scanned, in O(to - from).
+	 *
+	 * @return number of buckets
+	 */
+	private int build(int from, int to, int n, Calendar calendar) {
+		int i = from;
+		while (i < to) {
+			double start = bucketStart(source.getX(i), width, calendar);
+			double end = bucketEnd(start, width, calendar);
+			int next = Math.min(to, source.lowerIndex(end));
+			double sum = 0;
+			double lowest = Double.POSITIVE_INFINITY;
+			double highest = Double.NEGATIVE_INFINITY;
+			int values = 0;
+			int j = i;
+			while (j < next) {
+				int gap = source.nextGap(j, next);
+				values += gap - j;
+				for (; j < gap; j++) {
+					double v = source.getY(j);
+					sum += v;
+					if (v < lowest) {
+						lowest = v;
+					}
+					if (v > highest) {
+						highest = v;
+					}
+				}
+				if (j < next) {
+					// the gap doesn't count
+					j++;
+				}
+			}
+			if (values < next - i && n > 0 && !Double.isNaN(y[n - 1])) {
+				// the bucket contains a gap, interrupt the line before it
+				x[n] = source.getX(i);
+				y[n] = Double.NaN;
+				min[n] = Double.NaN;
+				max[n] = Double.NaN;
+				n++;
+			}
+			if (values > 0) {
+				// the middle of the bucket, but not beyond the values
+				x[n] = Math.max(source.getX(i), Math.min(source
+						.getX(next - 1), start + (end - start) / 2));
+				y[n] = sum / values;
+				min[n] = lowest;
+				max[n] = highest;
+				count[n] = values;
+				n++;
+			}
+			i = next;
+		}
+		return n;
+	}
+
+	/**
+	 * @return true if the buckets cover the x range from - to
+	 */
+	boolean covers(double from, double to) {
+		return from >= fromX && to <= toX;
+	}
+
+	/**
+	 * @return width of the buckets
+	 */
+	public long getBucketWidth() {
+		return width;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public long getRetainedBytes() {
+		return 36L * x.length;
+	}
+
+	@Override
+	public double getX(int index) {
+		return x[index];
+	}
+
+	/**
+	 * @return average of the bucket
+	 */
+	@Override
+	public double getY(int index) {
+		return y[index];
+	}
+
+	public double getBucketMin(int index) {
+		return min[index];
+	}
+
+	public double getBucketMax(int index) {
+		return max[index];
+	}
+
+	/**
+	 * @return number of values in the bucket
+	 */
+	public int getBucketCount(int index) {
+		return count[index];
+	}
+
+	/**
+	 * the buckets become plain values of a copy, so that they can be changed
+	 */
+	@Override
+	public SeriesSnapshot append(double x, double y) {
+		return ArraySeriesSnapshot.copyOf(this).append(x, y);
+	}
+
+	@Override
+	public SeriesSnapshot removeFirst(int count) {
+		return ArraySeriesSnapshot.copyOf(this).removeFirst(count);
+	}
+
+	/**
+	 * the bounds of the buckets, so that the y axis doesn't change when the
+	 * graph switches between raw and rolled up data
+	 */
+	@Override
+	RangeBounds computeBounds(int from, int to) {
+		double lowest = Double.POSITIVE_INFINITY;
+		double highest = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			if (min[i] < lowest) {
+				lowest = min[i];
+			}
+			if (max[i] > highest) {
+				highest = max[i];
+			}
+		}
+		return new RangeBounds(from, to, lowest, highest);
+	}
+}
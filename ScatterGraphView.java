@@ -0,0 +1,237 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+
+import com.jjoe64.graphview.GraphViewSeries.GraphViewSeriesStyle;
+
+/**
+ * Scatter Graph View. This draws a point for every value.
+ *
+ * All points of a series are drawn with one drawPoints call. Of the values
+ * falling on the same pixel only the first one is kept, so a series of 1M
+ * values costs at most one point per pixel of the graph.
+ *
+ * A slice with more values than the density threshold is drawn as a density
+ * map instead: the values are counted per pixel and the counts are drawn as
+ * a bitmap through a color ramp, see {@link DensityMap}.
+ */
+public class ScatterGraphView extends GraphView {
+	private final Paint pointPaint = new Paint();
+	private float pointSize = 3f;
+	// reused buffer of the projected values
+	private float[] points = new float[64];
+	// one bit per pixel, set when a point was drawn on it
+	private long[] drawnPixels = new long[0];
+	private int densityThreshold = 100000;
+	private int[] densityRamp = ramp(0x400077cc, 0xff0077cc, 0xffff3300);
+	// by series, or by style if drawSeries is called for no series
+	private final Map<Object, DensityMap> densityMaps = new IdentityHashMap<Object, DensityMap>();
+	private int drawCount;
+
+	public ScatterGraphView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+	}
+
+	public ScatterGraphView(Context context, String title) {
+		super(context, title);
+	}
+
+	@Override
+	public void drawSeries(Canvas canvas, GraphViewDataInterface[] values, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
+		drawSeries(canvas, new ObjectArraySnapshot(values), 0, values.length, graphwidth, graphheight, border, minX, minY, diffX, diffY, horstart, style);
+	}
+
+	@Override
+	protected void drawSeries(Canvas canvas, SeriesSnapshot data, int from, int to, float graphwidth, float graphheight, float border, double minX, double minY, double diffX, double diffY, float horstart, GraphViewSeriesStyle style) {
+		if (to - from > densityThreshold) {
+			// the map only covers the graph area
+			int width = (int) graphwidth + 2;
+			int height = (int) graphheight + 2;
+			DensityMap map = densityMap(style);
+			if (!map.matches(data, from, to, minX, graphwidth / diffX, 1, minY, -graphheight / diffY, graphheight, width, height)) {
+				map.count(data, from, to, minX, graphwidth / diffX, 1, minY, -graphheight / diffY, graphheight, width, height);
+			}
+			map.draw(canvas, densityRamp, horstart, border);
+			return;
+		}
+		if (points.length < (to - from) * 2) {
+			points = new float[(to - from) * 2];
+		}
+		int n = data.projectValues(from, to, minX, graphwidth / diffX, horstart + 1, minY, -graphheight / diffY, border + graphheight, points, 0);
+		int count = removeHiddenPoints(n, (int) (horstart + graphwidth) + 2, (int) (border + graphheight) + 2);
+
+		boolean full = getRenderQuality() == RenderQuality.FULL;
+		pointPaint.setColor(style.color);
+		pointPaint.setAntiAlias(full);
+		// squares are much faster to draw than circles
+		pointPaint.setStrokeCap(full ? Paint.Cap.ROUND : Paint.Cap.SQUARE);
+		pointPaint.setStrokeWidth(dpToPx(pointSize));
+		canvas.drawPoints(points, 0, count, pointPaint);
+	}
+
+	/**
+	 * compacts the projected points: points outside of the graph and points
+	 * on a pixel that already has a point are removed
+	 *
+	 * @return number of floats left
+	 */
+	private int removeHiddenPoints(int n, int width, int height) {
+		int pixels = width * height;
+		int words = (pixels + 63) >>> 6;
+		if (drawnPixels.length < words) {
+			drawnPixels = new long[words];
+		} else {
+			Arrays.fill(drawnPixels, 0, words, 0);
+		}
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			float x = points[2 * i];
+			float y = points[2 * i + 1];
+			if (!(x >= 0 && x < width && y >= 0 && y < height)) {
+				continue;
+			}
+			int pixel = (int) y * width + (int) x;
+			long bit = 1L << pixel;
+			if ((drawnPixels[pixel >>> 6] & bit) != 0) {
+				continue;
+			}
+			drawnPixels[pixel >>> 6] |= bit;
+			points[count++] = x;
+			points[count++] = y;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the cached density map of the series being drawn. Entries of
+	 *         series that were not drawn for a while are dropped.
+	 */
+	private DensityMap densityMap(GraphViewSeriesStyle style) {
+		drawCount++;
+		Object key = getDrawingSeries() != null ? getDrawingSeries() : style;
+		DensityMap map = densityMaps.get(key);
+		if (map == null) {
+			Iterator<DensityMap> it = densityMaps.values().iterator();
+			while (it.hasNext()) {
+				if (drawCount - it.next().lastDraw > densityMaps.size()) {
+					it.remove();
+				}
+			}
+			map = new DensityMap();
+			densityMaps.put(key, map);
+		}
+		map.lastDraw = drawCount;
+		return map;
+	}
+
+	/**
+	 * @return 256 colors, interpolated between the colors
+	 */
+	private static int[] ramp(int... colors) {
+		int[] ramp = new int[256];
+		for (int i = 0; i < ramp.length; i++) {
+			float pos = (float) i / (ramp.length - 1) * (colors.length - 1);
+			int k = Math.min((int) pos, colors.length - 2);
+			float f = pos - k;
+			int a = colors[k];
+			int b = colors[k + 1];
+			ramp[i] = Color.argb(mix(Color.alpha(a), Color.alpha(b), f), mix(
+					Color.red(a), Color.red(b), f), mix(Color.green(a),
+					Color.green(b), f), mix(Color.blue(a), Color.blue(b), f));
+		}
+		return ramp;
+	}
+
+	private static int mix(int a, int b, float f) {
+		return Math.round(a + (b - a) * f);
+	}
+
+	@Override
+	protected long getCacheBytes() {
+		long bytes = 4L * points.length + 8L * drawnPixels.length;
+		for (DensityMap map : densityMaps.values()) {
+			bytes += map.getRetainedBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * every value is a point of its own, so the slices are never decimated
+	 */
+	@Override
+	protected boolean isDecimationAllowed() {
+		return false;
+	}
+
+	public int getDensityThreshold() {
+		return densityThreshold;
+	}
+
+	/**
+	 * @param densityThreshold
+	 *            slices with more values are drawn as density map, 0 to
+	 *            always draw the density, Integer.MAX_VALUE to never
+	 */
+	public void setDensityThreshold(int densityThreshold) {
+		this.densityThreshold = densityThreshold;
+		getContentView().invalidate();
+	}
+
+	/**
+	 * sets the color ramp of the density maps. Only the colors are computed
+	 * again, the counts are kept.
+	 *
+	 * @param colors
+	 *            at least two colors, from the lowest to the highest density
+	 */
+	public void setDensityColors(int... colors) {
+		if (colors.length < 2) {
+			throw new IllegalArgumentException("at least two colors needed"); //NO I18N
+		}
+		densityRamp = ramp(colors);
+		getContentView().invalidate();
+	}
+
+	public float getPointSize() {
+		return pointSize;
+	}
+
+	/**
+	 * @param pointSize
+	 *            size of the points in dp
+	 */
+	public void setPointSize(float pointSize) {
+		this.pointSize = pointSize;
+	}
+}
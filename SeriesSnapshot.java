@@ -0,0 +1,479 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jjoe64.graphview.GraphView.GraphViewData;
+
+/**
+ * an immutable state of the data of a series. The values must be sorted by x.
+ * A value with y NaN is a gap, the line of the series is interrupted there.
+ *
+ * Snapshots can be shared by any number of series and graphs. Results derived
+ * from the data, like the y bounds of a viewport, are cached in the snapshot,
+ * so they are computed only once for all graphs showing it.
+ *
+ * A snapshot is reference counted: every series using it calls
+ * {@link #retain()} and {@link #release()} when it doesn't use it anymore.
+ *
+ * Snapshots are never changed after they were created, so they can be
+ * published to the render thread without locking.
+ */
+public abstract class SeriesSnapshot {
+	/**
+	 * y bounds of the index range from - to
+	 */
+	static final class RangeBounds {
+		final int from;
+		final int to;
+		final double minY;
+		final double maxY;
+
+		RangeBounds(int from, int to, double minY, double maxY) {
+			this.from = from;
+			this.to = to;
+			this.minY = minY;
+			this.maxY = maxY;
+		}
+	}
+
+	private static final AtomicLong VERSIONS = new AtomicLong();
+
+	private final long version = VERSIONS.incrementAndGet();
+	// version of the first snapshot this one was derived from by appending
+	// and removing values
+	private long lineage = version;
+	// number of values removed from the front since the first snapshot
+	private long removed;
+	private final AtomicInteger refCount = new AtomicInteger();
+
+	// the two last queried ranges, typically an overview and a detail graph
+	private volatile RangeBounds recentBounds;
+	private volatile RangeBounds previousBounds;
+	private volatile StatisticsIndex statistics;
+
+	/**
+	 * @return unique version of this snapshot. A snapshot created later has a
+	 *         higher version.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return number of values
+	 */
+	public abstract int size();
+
+	public abstract double getX(int index);
+
+	public abstract double getY(int index);
+
+	/**
+	 * appends a value. The snapshot itself is not changed, the returned
+	 * snapshot contains all values of this snapshot and the new one. It shares
+	 * the storage with this snapshot whenever possible.
+	 *
+	 * @param x
+	 *            must not be smaller than the last x value
+	 * @param y
+	 * @return new snapshot
+	 */
+	public abstract SeriesSnapshot append(double x, double y);
+
+	/**
+	 * appends count values. See {@link #append(double, double)}.
+	 *
+	 * @param x
+	 *            sorted x values, the first must not be smaller than the last
+	 *            x value of this snapshot
+	 * @param y
+	 * @param offset
+	 *            index of the first value in x and y
+	 * @param count
+	 * @return new snapshot
+	 */
+	public SeriesSnapshot appendAll(double[] x, double[] y, int offset,
+			int count) {
+		SeriesSnapshot next = this;
+		for (int i = offset; i < offset + count; i++) {
+			next = next.append(x[i], y[i]);
+		}
+		return next;
+	}
+
+	/**
+	 * @return a snapshot without the first count values, sharing the storage
+	 *         whenever possible
+	 */
+	public abstract SeriesSnapshot removeFirst(int count);
+
+	/**
+	 * @return index of the first gap in the index range from (inclusive) - to
+	 *         (exclusive), to if there is none
+	 */
+	public int nextGap(int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (Double.isNaN(getY(i))) {
+				return i;
+			}
+		}
+		return to;
+	}
+
+	/**
+	 * @return index of the first value with x >= the given x, size() if there
+	 *         is none
+	 */
+	public int lowerIndex(double x) {
+		int low = 0;
+		int high = size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (getX(mid) < x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return index of the first value with x > the given x, size() if there
+	 *         is none
+	 */
+	public int upperIndex(double x) {
+		int low = 0;
+		int high = size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (getX(mid) <= x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return smallest y value of the index range from (inclusive) - to
+	 *         (exclusive)
+	 */
+	public double getMinY(int from, int to) {
+		return bounds(from, to).minY;
+	}
+
+	/**
+	 * @return largest y value of the index range from (inclusive) - to
+	 *         (exclusive)
+	 */
+	public double getMaxY(int from, int to) {
+		return bounds(from, to).maxY;
+	}
+
+	/**
+	 * computes the statistics of the index range from (inclusive) - to
+	 * (exclusive). The first query builds an index in O(n), then a query
+	 * takes O(log n). Snapshots appended to this one only index the new
+	 * values.
+	 * 
+	 * @param result
+	 *            is filled with the statistics
+	 */
+	public void getStatistics(int from, int to, RangeStatistics result) {
+		statistics().query(this, from, to, result);
+	}
+
+	/**
+	 * @return the statistics index, built or extended to all values
+	 */
+	StatisticsIndex statistics() {
+		StatisticsIndex index = statistics;
+		if (index == null) {
+			index = StatisticsIndex.build(this);
+			statistics = index;
+		} else if (index.size() != size()) {
+			index = index.extend(this);
+			statistics = index;
+		}
+		return index;
+	}
+
+	/**
+	 * writes all x values to x and all y values to y. Override this if the
+	 * storage can write them in bulk.
+	 */
+	void putColumns(DoubleBuffer x, DoubleBuffer y) {
+		int n = size();
+		for (int i = 0; i < n; i++) {
+			x.put(getX(i));
+			y.put(getY(i));
+		}
+	}
+
+	/**
+	 * projects the values of the index range from - to to screen
+	 * coordinates: x = (float) ((getX(i) - minX) * scaleX) + offsetX, y
+	 * alike, written to out as x, y pairs from outPos on. Override this if the
+	 * storage can project its columns in bulk, see {@link ColumnKernels}.
+	 */
+	void project(int from, int to, double minX, double scaleX, float offsetX,
+			double minY, double scaleY, float offsetY, float[] out, int outPos) {
+		int o = outPos;
+		for (int i = from; i < to; i++) {
+			out[o] = (float) ((getX(i) - minX) * scaleX) + offsetX;
+			out[o + 1] = (float) ((getY(i) - minY) * scaleY) + offsetY;
+			o += 2;
+		}
+	}
+
+	/**
+	 * like {@link #project(int, int, double, double, float, double, double, float, float[], int)}
+	 * , but the gaps are left out
+	 * 
+	 * @return number of projected values
+	 */
+	int projectValues(int from, int to, double minX, double scaleX,
+			float offsetX, double minY, double scaleY, float offsetY,
+			float[] out, int outPos) {
+		int count = 0;
+		int runStart = from;
+		while (runStart < to) {
+			int gap = nextGap(runStart, to);
+			project(runStart, gap, minX, scaleX, offsetX, minY, scaleY,
+					offsetY, out, outPos + 2 * count);
+			count += gap - runStart;
+			runStart = gap + 1;
+		}
+		return count;
+	}
+
+	/**
+	 * called before the index range from - to is drawn. Snapshots computing
+	 * their values lazily compute them here.
+	 */
+	void prepare(int from, int to) {
+	}
+
+	RangeBounds bounds(int from, int to) {
+		RangeBounds recent = recentBounds;
+		if (recent != null && recent.from == from && recent.to == to) {
+			return recent;
+		}
+		RangeBounds b = previousBounds;
+		if (b == null || b.from != from || b.to != to) {
+			b = extendBounds(recent, from, to);
+			if (b == null) {
+				b = extendBounds(previousBounds, from, to);
+			}
+			if (b == null) {
+				b = computeBounds(from, to);
+			}
+		}
+		previousBounds = recent;
+		recentBounds = b;
+		return b;
+	}
+
+	/**
+	 * after appending, the cached range often is the beginning of the queried
+	 * one. Then only the new values have to be scanned.
+	 */
+	private RangeBounds extendBounds(RangeBounds b, int from, int to) {
+		if (b == null || b.from != from || b.to > to) {
+			return null;
+		}
+		RangeBounds tail = computeBounds(b.to, to);
+		return new RangeBounds(from, to, Math.min(b.minY, tail.minY), Math.max(
+				b.maxY, tail.maxY));
+	}
+
+	/**
+	 * takes over the cached bounds of the snapshot this one was appended to.
+	 * Appending doesn't move the values, so the cached ranges are still
+	 * valid.
+	 */
+	void inheritBounds(SeriesSnapshot previous) {
+		lineage = previous.lineage;
+		removed = previous.removed;
+		recentBounds = previous.recentBounds;
+		previousBounds = previous.previousBounds;
+		statistics = previous.statistics;
+	}
+
+	/**
+	 * takes over the statistics index of the snapshot this one was created
+	 * from by removing the first count values
+	 */
+	void inheritStatistics(SeriesSnapshot previous, int count) {
+		lineage = previous.lineage;
+		removed = previous.removed + count;
+		StatisticsIndex index = previous.statistics;
+		if (index != null) {
+			statistics = index.dropFirst(count);
+		}
+	}
+
+	/**
+	 * @return true if this snapshot was created from previous (or from a
+	 *         snapshot created from it) by appending values and removing the
+	 *         first ones. The values previous and this one have in common are
+	 *         the same then.
+	 */
+	boolean isSuccessorOf(SeriesSnapshot previous) {
+		if (lineage != previous.lineage || version < previous.version) {
+			return false;
+		}
+		// appending to an older snapshot forks the data, so check that the
+		// last value of previous is still there
+		int last = previous.size() - 1;
+		int i = last - removedSince(previous);
+		if (i < 0) {
+			// nothing in common
+			return true;
+		}
+		return i < size() && getX(i) == previous.getX(last)
+				&& Double.compare(getY(i), previous.getY(last)) == 0;
+	}
+
+	/**
+	 * @return the number of values removed from the front since previous,
+	 *         which this snapshot is a successor of. The value i of previous
+	 *         is the value i - removedSince(previous) of this one.
+	 */
+	int removedSince(SeriesSnapshot previous) {
+		return (int) (removed - previous.removed);
+	}
+
+	/**
+	 * scans the y values of the range. Override this if the storage knows
+	 * faster ways.
+	 */
+	RangeBounds computeBounds(int from, int to) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			double y = getY(i);
+			if (y < min) {
+				min = y;
+			}
+			if (y > max) {
+				max = y;
+			}
+		}
+		return new RangeBounds(from, to, min, max);
+	}
+
+	/**
+	 * creates data objects for the index range from - to, for the graphs
+	 * drawing GraphViewDataInterface arrays
+	 */
+	GraphViewDataInterface[] toArray(int from, int to) {
+		GraphViewDataInterface[] values = new GraphViewDataInterface[to - from];
+		for (int i = from; i < to; i++) {
+			values[i - from] = new GraphViewData(getX(i), getY(i));
+		}
+		return values;
+	}
+
+	/**
+	 * marks an index in a gap bitmap
+	 */
+	static void setGap(long[] gaps, int index) {
+		gaps[index >> 6] |= 1L << index;
+	}
+
+	/**
+	 * @return first index of the range from - to that is marked in the gap
+	 *         bitmap, to if there is none. Skips 64 values per step.
+	 */
+	static int nextGap(long[] gaps, int from, int to) {
+		if (from >= to) {
+			return to;
+		}
+		int w = from >> 6;
+		int last = (to - 1) >> 6;
+		long word = gaps[w] & (-1L << from);
+		while (word == 0) {
+			if (++w > last) {
+				return to;
+			}
+			word = gaps[w];
+		}
+		return Math.min(to, (w << 6) + Long.numberOfTrailingZeros(word));
+	}
+
+	/**
+	 * @return estimated number of bytes of the storage this snapshot keeps
+	 *         alive. Storage shared with other snapshots is counted in full,
+	 *         cached bounds and statistics are not counted, see
+	 *         {@link #getStatisticsBytes()}.
+	 */
+	public long getRetainedBytes() {
+		return 16L * size();
+	}
+
+	/**
+	 * @return estimated number of bytes of the statistics index, 0 if no
+	 *         range statistics were queried
+	 */
+	public long getStatisticsBytes() {
+		StatisticsIndex index = statistics;
+		return index == null ? 0 : index.getRetainedBytes();
+	}
+
+	/**
+	 * registers a user of this snapshot
+	 *
+	 * @return this
+	 */
+	public SeriesSnapshot retain() {
+		refCount.incrementAndGet();
+		return this;
+	}
+
+	/**
+	 * unregisters a user of this snapshot. When the last user released it, the
+	 * derived results are dropped.
+	 */
+	public void release() {
+		if (refCount.decrementAndGet() <= 0) {
+			refCount.set(0);
+			recentBounds = null;
+			previousBounds = null;
+			statistics = null;
+		}
+	}
+
+	/**
+	 * @return number of series using this snapshot
+	 */
+	public int getRefCount() {
+		return refCount.get();
+	}
+}
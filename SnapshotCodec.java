@@ -0,0 +1,203 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * binary format for snapshots, much smaller and faster than serializing
+ * GraphViewData objects. The columns are written and read in bulk, a
+ * snapshot of 1M values is restored by two array copies.
+ *
+ * Layout, little endian: a 16 bytes header (magic, version, storage type,
+ * value count), then the columns. Double columns: n x doubles, n y doubles.
+ * Compact columns ({@link CompactSeriesSnapshot}): the base x as long, n int
+ * offsets, n floats. Compressed blocks ({@link CompressedSeriesSnapshot}):
+ * the blocks as they are, then the uncompressed tail. Other snapshots are
+ * written as double columns.
+ *
+ * A decoded snapshot has the storage type of the encoded one, so a restored
+ * series keeps its memory footprint.
+ */
+public final class SnapshotCodec {
+	static final int MAGIC = 0x4E535647; // "GVSN"
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 16;
+	private static final int TYPE_DOUBLE = 0;
+	private static final int TYPE_COMPACT = 1;
+	private static final int TYPE_COMPRESSED = 2;
+
+	private SnapshotCodec() {
+	}
+
+	/**
+	 * @return number of bytes {@link #encode(SeriesSnapshot, ByteBuffer)}
+	 *         writes
+	 */
+	public static int encodedSize(SeriesSnapshot data) {
+		if (data instanceof CompactSeriesSnapshot) {
+			return HEADER_SIZE + 8 + 8 * data.size();
+		}
+		if (data instanceof CompressedSeriesSnapshot) {
+			return HEADER_SIZE
+					+ ((CompressedSeriesSnapshot) data).encodedSize();
+		}
+		return HEADER_SIZE + 16 * data.size();
+	}
+
+	/**
+	 * writes the snapshot at the position of out and moves the position
+	 * behind it
+	 *
+	 * @throws BufferOverflowException
+	 *             if out has less than {@link #encodedSize(SeriesSnapshot)}
+	 *             bytes remaining
+	 */
+	public static void encode(SeriesSnapshot data, ByteBuffer out) {
+		int size = encodedSize(data);
+		ByteBuffer b = region(out, size);
+		int n = data.size();
+		int type = typeOf(data);
+		b.putInt(MAGIC);
+		b.putShort((short) VERSION);
+		b.put((byte) type);
+		b.put((byte) 0);
+		b.putInt(n);
+		b.putInt(0);
+		if (type == TYPE_COMPRESSED) {
+			((CompressedSeriesSnapshot) data).encode(b);
+		} else if (type == TYPE_COMPACT) {
+			CompactSeriesSnapshot c = (CompactSeriesSnapshot) data;
+			b.putLong(c.getBaseX());
+			int pos = b.position();
+			c.putColumns(b.asIntBuffer(), ((ByteBuffer) b.position(pos + 4
+					* n)).asFloatBuffer());
+		} else {
+			int pos = b.position();
+			data.putColumns(b.asDoubleBuffer(), ((ByteBuffer) b.position(pos
+					+ 8 * n)).asDoubleBuffer());
+		}
+		out.position(out.position() + size);
+	}
+
+	private static int typeOf(SeriesSnapshot data) {
+		if (data instanceof CompactSeriesSnapshot) {
+			return TYPE_COMPACT;
+		}
+		if (data instanceof CompressedSeriesSnapshot) {
+			return TYPE_COMPRESSED;
+		}
+		return TYPE_DOUBLE;
+	}
+
+	/**
+	 * @return the encoded snapshot
+	 */
+	public static byte[] encode(SeriesSnapshot data) {
+		byte[] bytes = new byte[encodedSize(data)];
+		encode(data, ByteBuffer.wrap(bytes));
+		return bytes;
+	}
+
+	/**
+	 * reads a snapshot at the position of in and moves the position behind
+	 * it. The values are read directly into the columns of the new snapshot.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if there is no snapshot or it was written by a newer
+	 *             version
+	 */
+	public static SeriesSnapshot decode(ByteBuffer in) {
+		if (in.remaining() < HEADER_SIZE) {
+			throw new IllegalArgumentException("no snapshot"); //NO I18N
+		}
+		ByteBuffer b = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if (b.getInt() != MAGIC) {
+			throw new IllegalArgumentException("no snapshot"); //NO I18N
+		}
+		int version = b.getShort();
+		if (version > VERSION) {
+			throw new IllegalArgumentException("unsupported version " //NO I18N
+					+ version);
+		}
+		int type = b.get();
+		b.get();
+		int n = b.getInt();
+		b.getInt();
+		SeriesSnapshot data;
+		if (type == TYPE_COMPACT) {
+			checkRemaining(b, 8 + 8L * n);
+			long baseX = b.getLong();
+			int[] x = new int[n];
+			float[] y = new float[n];
+			int pos = b.position();
+			b.asIntBuffer().get(x);
+			((ByteBuffer) b.position(pos + 4 * n)).asFloatBuffer().get(y);
+			data = CompactSeriesSnapshot.wrap(baseX, x, y);
+		} else if (type == TYPE_DOUBLE) {
+			checkRemaining(b, 16L * n);
+			double[] x = new double[n];
+			double[] y = new double[n];
+			int pos = b.position();
+			b.asDoubleBuffer().get(x);
+			((ByteBuffer) b.position(pos + 8 * n)).asDoubleBuffer().get(y);
+			data = ArraySeriesSnapshot.wrap(x, y);
+		} else if (type == TYPE_COMPRESSED) {
+			data = CompressedSeriesSnapshot.decode(b);
+			if (data.size() != n) {
+				throw new IllegalArgumentException("corrupt snapshot"); //NO I18N
+			}
+		} else {
+			throw new IllegalArgumentException("unknown storage type " + type); //NO I18N
+		}
+		in.position(in.position() + encodedSize(data));
+		return data;
+	}
+
+	/**
+	 * @return the snapshot encoded in bytes
+	 */
+	public static SeriesSnapshot decode(byte[] bytes) {
+		return decode(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * @return a little endian buffer for the next size bytes of out
+	 */
+	static ByteBuffer region(ByteBuffer out, int size) {
+		if (out.remaining() < size) {
+			throw new BufferOverflowException();
+		}
+		ByteBuffer b = out.slice().order(ByteOrder.LITTLE_ENDIAN);
+		b.limit(size);
+		return b;
+	}
+
+	private static void checkRemaining(ByteBuffer b, long size) {
+		if (b.remaining() < size) {
+			throw new IllegalArgumentException("truncated snapshot"); //NO I18N
+		}
+	}
+}
@@ -0,0 +1,221 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.nio.DoubleBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * a series backed by a {@link SeriesSnapshot}. Several series (e.g. of an
+ * overview and a detail graph) can be created from the same snapshot, they
+ * share the storage and the results derived from it.
+ *
+ * New data is published lock-free: the producer builds the next snapshot and
+ * swaps it in atomically, the graphs always read a complete snapshot. Neither
+ * side ever waits for the other, so data can be appended from any thread.
+ *
+ * Unlike plain series, negative y values are drawn. Append y NaN to
+ * interrupt the line.
+ */
+public class SnapshotSeries extends GraphViewSeries {
+	private final AtomicReference<SeriesSnapshot> snapshot;
+	private final List<GraphView> snapshotGraphViews = new CopyOnWriteArrayList<GraphView>();
+
+	public SnapshotSeries(SeriesSnapshot snapshot) {
+		this(null, null, snapshot);
+	}
+
+	/**
+	 * @param description
+	 *            [optional] legend text
+	 * @param style
+	 *            [optional]
+	 * @param snapshot
+	 *            data of the series
+	 */
+	public SnapshotSeries(String description, GraphViewSeriesStyle style,
+			SeriesSnapshot snapshot) {
+		super(description, style, new GraphViewDataInterface[0]);
+		this.snapshot = new AtomicReference<SeriesSnapshot>(snapshot.retain());
+	}
+
+	/**
+	 * @return the current data. It can be shared with other series.
+	 */
+	public SeriesSnapshot getSnapshot() {
+		return snapshot.get();
+	}
+
+	@Override
+	public void addGraphView(GraphView graphView) {
+		super.addGraphView(graphView);
+		snapshotGraphViews.add(graphView);
+	}
+
+	@Override
+	public void removeGraphView(GraphView graphView) {
+		super.removeGraphView(graphView);
+		snapshotGraphViews.remove(graphView);
+	}
+
+	/**
+	 * add one data to current data
+	 *
+	 * @param x
+	 * @param y
+	 * @param scrollToEnd
+	 *            true => graphview will scroll to the end (maxX)
+	 * @param maxDataCount
+	 *            if max data count is reached, the oldest data value will be
+	 *            lost
+	 */
+	public void appendData(double x, double y, boolean scrollToEnd,
+			int maxDataCount) {
+		checkScrollable(scrollToEnd);
+		SeriesSnapshot current;
+		SeriesSnapshot next;
+		do {
+			// another producer may publish in between, then append to its
+			// snapshot
+			current = snapshot.get();
+			next = current.append(x, y);
+			if (next.size() > maxDataCount) {
+				next = next.removeFirst(next.size() - maxDataCount);
+			}
+		} while (!snapshot.compareAndSet(current, next));
+		published(current, next, scrollToEnd);
+	}
+
+	/**
+	 * appends many values at once. The graphs are redrawn once, and the
+	 * labels are only regenerated if the axes changed.
+	 *
+	 * @param x
+	 *            sorted x values
+	 * @param y
+	 * @param offset
+	 *            index of the first value in x and y
+	 * @param count
+	 *            number of values to append
+	 * @param scrollToEnd
+	 *            true => graphview will scroll to the end (maxX)
+	 * @param maxDataCount
+	 *            if max data count is reached, the oldest data values will be
+	 *            lost
+	 */
+	public void appendData(double[] x, double[] y, int offset, int count,
+			boolean scrollToEnd, int maxDataCount) {
+		if (count == 0) {
+			return;
+		}
+		checkScrollable(scrollToEnd);
+		SeriesSnapshot current;
+		SeriesSnapshot next;
+		do {
+			current = snapshot.get();
+			next = current.appendAll(x, y, offset, count);
+			if (next.size() > maxDataCount) {
+				next = next.removeFirst(next.size() - maxDataCount);
+			}
+		} while (!snapshot.compareAndSet(current, next));
+		published(current, next, scrollToEnd);
+	}
+
+	/**
+	 * appends the remaining values of the buffers. Heap buffers whose
+	 * remaining values start at the same array index are read in place.
+	 * 
+	 * @see #appendData(double[], double[], int, int, boolean, int)
+	 */
+	public void appendData(DoubleBuffer x, DoubleBuffer y,
+			boolean scrollToEnd, int maxDataCount) {
+		int count = Math.min(x.remaining(), y.remaining());
+		if (x.hasArray() && y.hasArray()
+				&& x.arrayOffset() + x.position() == y.arrayOffset()
+						+ y.position()) {
+			appendData(x.array(), y.array(), x.arrayOffset() + x.position(),
+					count, scrollToEnd, maxDataCount);
+			x.position(x.position() + count);
+			y.position(y.position() + count);
+			return;
+		}
+		double[] xs = new double[count];
+		double[] ys = new double[count];
+		x.get(xs, 0, count);
+		y.get(ys, 0, count);
+		appendData(xs, ys, 0, count, scrollToEnd, maxDataCount);
+	}
+
+	@Override
+	public void appendData(GraphViewDataInterface value, boolean scrollToEnd,
+			int maxDataCount) {
+		appendData(value.getX(), value.getY(), scrollToEnd, maxDataCount);
+	}
+
+	/**
+	 * clears the current data and sets the new snapshot
+	 *
+	 * @param snapshot
+	 */
+	public void resetData(SeriesSnapshot snapshot) {
+		published(this.snapshot.getAndSet(snapshot), snapshot, false);
+	}
+
+	/**
+	 * replaces the data by the columns. The arrays are used directly and must
+	 * not be changed afterwards.
+	 *
+	 * @param x
+	 *            sorted x values
+	 * @param y
+	 */
+	public void resetData(double[] x, double[] y) {
+		resetData(ArraySeriesSnapshot.wrap(x, y));
+	}
+
+	@Override
+	public void resetData(GraphViewDataInterface[] values) {
+		resetData(ArraySeriesSnapshot.copyOf(values));
+	}
+
+	/**
+	 * checks the graphs before the data is published, so that a failed
+	 * append leaves the data unchanged
+	 */
+	private void checkScrollable(boolean scrollToEnd) {
+		for (GraphView g : snapshotGraphViews) {
+			g.checkScrollable(scrollToEnd);
+		}
+	}
+
+	private void published(SeriesSnapshot previous, SeriesSnapshot next,
+			boolean scrollToEnd) {
+		next.retain();
+		previous.release();
+		for (GraphView g : snapshotGraphViews) {
+			g.onSeriesDataChanged(scrollToEnd);
+		}
+	}
+}
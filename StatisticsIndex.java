@@ -0,0 +1,284 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * index for the statistics of index ranges of a snapshot: prefix sums of the
+ * count, the values and their squares, and a pyramid of the min/max of
+ * blocks of 32, 1024, ... values. A range query takes two prefix lookups and
+ * O(log n) pyramid entries.
+ *
+ * The index arrays are shared like the columns of
+ * {@link ArraySeriesSnapshot}: the index of an appended snapshot extends the
+ * arrays in place if it owns their end. After removeFirst the index is shared
+ * with a shifted base.
+ */
+final class StatisticsIndex {
+	private static final int BLOCK_SHIFT = 5;
+	private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+	private static final int MIN_CAPACITY = 64;
+
+	/**
+	 * storage shared by all indexes derived from each other. The values are
+	 * addressed by their absolute position.
+	 */
+	private static final class Prefix {
+		// prefix[p] is the aggregate of the positions before p
+		final int[] count;
+		final double[] sum;
+		final double[] sumOfSquares;
+		// mins[level][j] covers the positions j << (5 * (level + 1)) ...
+		final double[][] mins;
+		final double[][] maxs;
+		// number of positions that are in use
+		final AtomicInteger used;
+
+		Prefix(int capacity, int used) {
+			count = new int[capacity + 1];
+			sum = new double[capacity + 1];
+			sumOfSquares = new double[capacity + 1];
+			int levels = 0;
+			for (int n = capacity >> BLOCK_SHIFT; n > 0; n >>= BLOCK_SHIFT) {
+				levels++;
+			}
+			mins = new double[levels][];
+			maxs = new double[levels][];
+			for (int l = 0; l < levels; l++) {
+				int n = (capacity >> (BLOCK_SHIFT * (l + 1))) + 1;
+				mins[l] = new double[n];
+				maxs[l] = new double[n];
+				Arrays.fill(mins[l], Double.POSITIVE_INFINITY);
+				Arrays.fill(maxs[l], Double.NEGATIVE_INFINITY);
+			}
+			this.used = new AtomicInteger(used);
+		}
+
+		int capacity() {
+			return count.length - 1;
+		}
+	}
+
+	private final Prefix prefix;
+	// absolute position of the first value of the snapshot
+	private final int base;
+	private final int size;
+
+	private StatisticsIndex(Prefix prefix, int base, int size) {
+		this.prefix = prefix;
+		this.base = base;
+		this.size = size;
+	}
+
+	/**
+	 * builds the index of all values of the snapshot
+	 */
+	static StatisticsIndex build(SeriesSnapshot data) {
+		Prefix p = new Prefix(Math.max(MIN_CAPACITY, data.size()), data.size());
+		add(p, data, 0, 0, data.size());
+		return new StatisticsIndex(p, 0, data.size());
+	}
+
+	/**
+	 * @return number of values covered by the index
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return estimated number of bytes of the index storage, which may be
+	 *         shared with the indexes of other snapshots
+	 */
+	long getRetainedBytes() {
+		long bytes = 20L * prefix.count.length;
+		for (int l = 0; l < prefix.mins.length; l++) {
+			bytes += 16L * prefix.mins[l].length;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return the index of a snapshot that was appended to the snapshot of
+	 *         this index
+	 */
+	StatisticsIndex extend(SeriesSnapshot data) {
+		int newSize = data.size();
+		int end = base + size;
+		int newEnd = base + newSize;
+		Prefix p = prefix;
+		int newBase = base;
+		if (newEnd > p.capacity() || !p.used.compareAndSet(end, newEnd)) {
+			p = copy(data, newSize);
+			newBase = 0;
+		}
+		add(p, data, size, newBase + size, newSize - size);
+		return new StatisticsIndex(p, newBase, newSize);
+	}
+
+	/**
+	 * @return the index of the snapshot without the first count values
+	 */
+	StatisticsIndex dropFirst(int count) {
+		count = Math.min(count, size);
+		return new StatisticsIndex(prefix, base + count, size - count);
+	}
+
+	/**
+	 * copies the positions of this index to new storage with room for at
+	 * least minSize values. The prefix sums stay relative to the old start,
+	 * only their differences are used.
+	 */
+	private Prefix copy(SeriesSnapshot data, int minSize) {
+		int capacity = Math.max(MIN_CAPACITY, Math.max(minSize, size
+				+ (size >> 1)));
+		Prefix p = new Prefix(capacity, minSize);
+		System.arraycopy(prefix.count, base, p.count, 0, size + 1);
+		System.arraycopy(prefix.sum, base, p.sum, 0, size + 1);
+		System.arraycopy(prefix.sumOfSquares, base, p.sumOfSquares, 0,
+				size + 1);
+		// the blocks are aligned to the absolute positions, they have to be
+		// built again
+		for (int i = 0; i < size; i++) {
+			if (p.count[i + 1] != p.count[i]) {
+				addToBlocks(p, i, data.getY(i));
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * adds count values of the snapshot, starting at index from, at the
+	 * absolute position pos
+	 */
+	private static void add(Prefix p, SeriesSnapshot data, int from, int pos,
+			int count) {
+		int to = from + count;
+		int i = from;
+		while (i < to) {
+			int gap = data.nextGap(i, to);
+			for (; i < gap; i++, pos++) {
+				double y = data.getY(i);
+				p.count[pos + 1] = p.count[pos] + 1;
+				p.sum[pos + 1] = p.sum[pos] + y;
+				p.sumOfSquares[pos + 1] = p.sumOfSquares[pos] + y * y;
+				addToBlocks(p, pos, y);
+			}
+			if (i < to) {
+				// the gap doesn't count
+				p.count[pos + 1] = p.count[pos];
+				p.sum[pos + 1] = p.sum[pos];
+				p.sumOfSquares[pos + 1] = p.sumOfSquares[pos];
+				i++;
+				pos++;
+			}
+		}
+	}
+
+	private static void addToBlocks(Prefix p, int pos, double y) {
+		for (int l = 0; l < p.mins.length; l++) {
+			int j = pos >> (BLOCK_SHIFT * (l + 1));
+			if (y < p.mins[l][j]) {
+				p.mins[l][j] = y;
+			}
+			if (y > p.maxs[l][j]) {
+				p.maxs[l][j] = y;
+			}
+		}
+	}
+
+	/**
+	 * @return number of values in the index range from - to, without the
+	 *         gaps
+	 */
+	int count(int from, int to) {
+		return prefix.count[base + to] - prefix.count[base + from];
+	}
+
+	/**
+	 * @return sum of the values in the index range from - to
+	 */
+	double sum(int from, int to) {
+		return prefix.sum[base + to] - prefix.sum[base + from];
+	}
+
+	/**
+	 * computes the statistics of the index range from - to of the snapshot
+	 */
+	void query(SeriesSnapshot data, int from, int to, RangeStatistics result) {
+		if (from >= to) {
+			result.set(0, 0, 0, Double.NaN, Double.NaN);
+			return;
+		}
+		int a = base + from;
+		int b = base + to;
+		int count = prefix.count[b] - prefix.count[a];
+		double sum = prefix.sum[b] - prefix.sum[a];
+		double sumOfSquares = prefix.sumOfSquares[b] - prefix.sumOfSquares[a];
+
+		// min/max: the values at the borders, then the blocks in between
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		int lo = a;
+		int hi = b;
+		int level = -1;
+		while (lo < hi) {
+			int loUp = Math.min(hi, (lo + BLOCK_MASK) & ~BLOCK_MASK);
+			int hiDown = Math.max(loUp, hi & ~BLOCK_MASK);
+			boolean top = level + 1 >= prefix.mins.length;
+			if (top) {
+				// no coarser level, take all entries of this level
+				loUp = hi;
+				hiDown = hi;
+			}
+			for (int k = 0; k < 2; k++) {
+				int start = k == 0 ? lo : hiDown;
+				int end = k == 0 ? loUp : hi;
+				for (int j = start; j < end; j++) {
+					if (level < 0) {
+						int i = j - base;
+						if (data.nextGap(i, i + 1) == i) {
+							continue;
+						}
+						double y = data.getY(i);
+						min = Math.min(min, y);
+						max = Math.max(max, y);
+					} else {
+						min = Math.min(min, prefix.mins[level][j]);
+						max = Math.max(max, prefix.maxs[level][j]);
+					}
+				}
+			}
+			lo = loUp >> BLOCK_SHIFT;
+			hi = hiDown >> BLOCK_SHIFT;
+			level++;
+		}
+		if (count == 0) {
+			min = Double.NaN;
+			max = Double.NaN;
+		}
+		result.set(count, sum, sumOfSquares, min, max);
+	}
+}
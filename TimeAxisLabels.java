@@ -0,0 +1,290 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.sql.Date;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * the labels of the time axis: the viewport is snapped to whole days, hours
+ * or minutes, depending on its size, and the labels are formatted as dates
+ * or times.
+ *
+ * The calendars and formats are reused, so an instance must only be used by
+ * one thread. The graph has one for the UI thread and one for the thread
+ * computing the labels in the background.
+ */
+final class TimeAxisLabels {
+	private final Calendar tcal1 = new GregorianCalendar();
+	private final Calendar tcal2 = new GregorianCalendar();
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM-dd");
+	private final SimpleDateFormat hourFormat = new SimpleDateFormat("HH:mm");
+	private final SimpleDateFormat dhFormat = new SimpleDateFormat(
+			"MMM-dd \n HH:mm");
+	private final Date date = new Date(0);
+
+	// results of the last snap
+	double snappedStart;
+	double snappedSize;
+	int numLabels;
+
+	/**
+	 * snaps the viewport start - start + size to round values, the results
+	 * are in snappedStart, snappedSize and numLabels
+	 *
+	 * @param numHorizontalLabels
+	 *            number of labels kept if the viewport is too small to be
+	 *            snapped
+	 */
+	void snap(double start, double size, int numHorizontalLabels) {
+		double curStartDate = start;
+		double curEndDate = start + size;
+		snappedStart = start;
+		snappedSize = size;
+
+		int calcNumLabels = numHorizontalLabels;
+
+		tcal1.setTimeInMillis((long) curEndDate);
+		if ((curEndDate - curStartDate) >= 13 * 24 * 60 * 60 * 1000) {
+			tcal2.setTimeInMillis((long) curStartDate);
+			int day = tcal1.get(Calendar.DAY_OF_MONTH);
+			if (tcal1.get(Calendar.HOUR_OF_DAY) > 12)
+			{
+				day++;
+			}
+			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH), day,
+					0, 0, 0);
+			day = tcal2.get(Calendar.DAY_OF_MONTH);
+			if (tcal2.get(Calendar.HOUR_OF_DAY) > 12)
+			{
+				day++;
+			}
+			tcal2.set(tcal2.get(Calendar.YEAR), tcal2.get(Calendar.MONTH), day,
+					0, 0, 0);
+			calcNumLabels = calculateNumLabels(tcal2.get(Calendar.DAY_OF_YEAR),
+					tcal1.get(Calendar.DAY_OF_YEAR));
+			snappedStart = tcal2.getTimeInMillis();
+			snappedSize = tcal1.getTimeInMillis() - tcal2.getTimeInMillis();
+		}
+
+		else if ((curEndDate - curStartDate) >= 3 * 24 * 60 * 60 * 1000) {
+			tcal2.setTimeInMillis((long) curStartDate);
+			int day = tcal1.get(Calendar.DAY_OF_MONTH);
+			if (tcal1.get(Calendar.HOUR_OF_DAY) > 12)
+			{	day++;}
+			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH), day,
+					0, 0, 0);
+			day = tcal2.get(Calendar.DAY_OF_MONTH);
+			if (tcal2.get(Calendar.HOUR_OF_DAY) > 12)
+				{day++;}
+			tcal2.set(tcal2.get(Calendar.YEAR), tcal2.get(Calendar.MONTH), day,
+					0, 0, 0);
+			calcNumLabels = calculateNumLabels(tcal2.get(Calendar.DAY_OF_YEAR),
+					tcal1.get(Calendar.DAY_OF_YEAR));
+			while (calcNumLabels == 0) {
+				tcal2.set(Calendar.DAY_OF_MONTH,
+						tcal2.get(Calendar.DAY_OF_MONTH) + 1);
+				calcNumLabels = calculateNumLabels(
+						tcal2.get(Calendar.DAY_OF_YEAR),
+						tcal1.get(Calendar.DAY_OF_YEAR));
+			}
+			snappedStart = tcal2.getTimeInMillis();
+			snappedSize = tcal1.getTimeInMillis() - tcal2.getTimeInMillis();
+		}
+
+		else if ((curEndDate - curStartDate) >= 140 * 60 * 1000) {
+			tcal2.setTimeInMillis((long) curStartDate);
+			int hour = tcal1.get(Calendar.HOUR_OF_DAY);
+			if (tcal1.get(Calendar.MINUTE) > 20)
+				{hour++;}
+			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH),
+					tcal1.get(Calendar.DAY_OF_MONTH), hour, 0, 0);
+			hour = tcal2.get(Calendar.HOUR_OF_DAY);
+			if (tcal2.get(Calendar.MINUTE) > 20)
+				{hour++;}
+			tcal2.set(tcal2.get(Calendar.YEAR), tcal2.get(Calendar.MONTH),
+					tcal2.get(Calendar.DAY_OF_MONTH), hour, 0, 0);
+			calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
+					/ (1000 * 60 * 60), tcal1.getTimeInMillis()
+					/ (1000 * 60 * 60));
+			while (calcNumLabels == 0) {
+				tcal2.set(Calendar.HOUR, tcal2.get(Calendar.HOUR) + 1);
+				calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
+						/ (1000 * 60 * 60), tcal1.getTimeInMillis()
+						/ (1000 * 60 * 60));
+			}
+			snappedStart = tcal2.getTimeInMillis();
+			snappedSize = tcal1.getTimeInMillis() - tcal2.getTimeInMillis();
+		}
+
+
+		else if ((curEndDate - curStartDate) >= 1000 * 60 * 60 * 2) {
+			tcal2.setTimeInMillis((long) curStartDate);
+			int roundoff1 = tcal1.get(Calendar.MINUTE) % 15;
+			int roundoff2 = tcal2.get(Calendar.MINUTE) % 15;
+			if (roundoff1 < 7)
+				{roundoff1 = -roundoff1;}
+			else
+				{roundoff1 = 15 - roundoff1;}
+			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH),
+					tcal1.get(Calendar.DAY_OF_MONTH),
+					tcal1.get(Calendar.HOUR_OF_DAY), tcal1.get(Calendar.MINUTE)
+							+ (roundoff1), 0);
+			if (roundoff2 < 7)
+				{roundoff2 = -roundoff2;}
+			else
+				{roundoff2 = 15 - roundoff2;}
+			tcal2.set(Calendar.MINUTE, tcal2.get(Calendar.MINUTE) + (roundoff2));
+			tcal2.set(Calendar.SECOND, 0);
+			calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
+					/ (1000 * 60 * 15), tcal1.getTimeInMillis()
+					/ (1000 * 60 * 15));
+			while (calcNumLabels == 0) {
+				tcal2.setTimeInMillis(tcal2.getTimeInMillis() + 1000 * 60 * 15);
+				calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
+						/ (1000 * 60 * 15), tcal1.getTimeInMillis()
+						/ (1000 * 60 * 15));
+			}
+			snappedStart = tcal2.getTimeInMillis();
+			snappedSize = tcal1.getTimeInMillis() - tcal2.getTimeInMillis();
+
+		} else if ((curEndDate - curStartDate) >= 1000 * 60 * 45) {
+			tcal2.setTimeInMillis((long) curStartDate);
+			int roundoff1 = tcal1.get(Calendar.MINUTE) % 15;
+			int roundoff2 = tcal2.get(Calendar.MINUTE) % 15;
+			if (roundoff1 < 7)
+				{roundoff1 = -roundoff1;}
+			else
+				{roundoff1 = 15 - roundoff1;}
+			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH),
+					tcal1.get(Calendar.DAY_OF_MONTH),
+					tcal1.get(Calendar.HOUR_OF_DAY), tcal1.get(Calendar.MINUTE)
+							+ (roundoff1), 0);
+			if (roundoff2 < 7)
+				{roundoff2 = -roundoff2;}
+			else
+				{roundoff2 = 15 - roundoff2;}
+			tcal2.set(Calendar.MINUTE, tcal2.get(Calendar.MINUTE) + (roundoff2));
+			tcal2.set(Calendar.SECOND, 0);
+			calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
+					/ (1000 * 60 * 15), tcal1.getTimeInMillis()
+					/ (1000 * 60 * 15));
+			while (calcNumLabels == 0) {
+				tcal2.setTimeInMillis(tcal2.getTimeInMillis() + 1000 * 60 * 5);
+				calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
+						/ (1000 * 60 * 15), tcal1.getTimeInMillis()
+						/ (1000 * 60 * 15));
+			}
+			snappedStart = tcal2.getTimeInMillis();
+			snappedSize = tcal1.getTimeInMillis() - tcal2.getTimeInMillis();
+		}
+
+		else if ((curEndDate - curStartDate) >= 1000 * 60 * 10) {
+			tcal2.setTimeInMillis((long) curStartDate);
+			int roundoff1 = tcal1.get(Calendar.MINUTE) % 5;
+			int roundoff2 = tcal2.get(Calendar.MINUTE) % 5;
+			if (roundoff1 < 3)
+				{roundoff1 = -roundoff1;}
+			else
+				{roundoff1 = 5 - roundoff1;}
+			tcal1.set(tcal1.get(Calendar.YEAR), tcal1.get(Calendar.MONTH),
+					tcal1.get(Calendar.DAY_OF_MONTH),
+					tcal1.get(Calendar.HOUR_OF_DAY), tcal1.get(Calendar.MINUTE)
+							+ (roundoff1), 0);
+			if (roundoff2 < 3)
+				{roundoff2 = -roundoff2;}
+			else
+				{roundoff2 = 5 - roundoff2;}
+			tcal2.set(Calendar.MINUTE, tcal2.get(Calendar.MINUTE) + (roundoff2));
+			tcal2.set(Calendar.SECOND, 0);
+			calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
+					/ (1000 * 60 * 5), tcal1.getTimeInMillis()
+					/ (1000 * 60 * 5));
+			while (calcNumLabels == 0) {
+				tcal2.setTimeInMillis(tcal2.getTimeInMillis() + 1000 * 60 * 5);
+				calcNumLabels = calculateNumLabels(tcal2.getTimeInMillis()
+						/ (1000 * 60 * 5), tcal1.getTimeInMillis()
+						/ (1000 * 60 * 5));
+			}
+			snappedStart = tcal2.getTimeInMillis();
+			snappedSize = tcal1.getTimeInMillis() - tcal2.getTimeInMillis();
+		}
+
+
+		numLabels = calcNumLabels;
+	}
+
+	/**
+	 * @return the labels of the last snapped viewport
+	 */
+	String[] labels() {
+		return labels(snappedStart, snappedSize, numLabels);
+	}
+
+	/**
+	 * @return numLabels labels of the viewport start - start + size, which
+	 *         is not snapped again
+	 */
+	String[] labels(double start, double size, int numLabels) {
+		int n = numLabels - 1;
+		String[] labels = new String[n + 1];
+		double min = start;
+		double max = start + size;
+		for (int i = 0; i <= n; i++) {
+			labels[i] = format(min + ((max - min) * i / n), min, max);
+		}
+		return labels;
+	}
+
+	/**
+	 * formats a time of the viewport lowestvalue - highestvalue: as date for
+	 * several days, as date and time for one to three days, as time for less
+	 */
+	String format(double value, double lowestvalue, double highestvalue) {
+		date.setTime((long) value);
+		if ((highestvalue - lowestvalue) >= 1000 * 60 * 60 * 24 * 3) {
+			return dateFormat.format(date);
+		} else if ((highestvalue - lowestvalue >= 1000 * 60 * 60 * 24 * 1)
+				&& (highestvalue - lowestvalue <= 1000 * 60 * 60 * 24 * 3))
+		{
+			return dhFormat.format(date);
+		}
+		else
+		{
+			return hourFormat.format(date);
+		}
+	}
+
+	private static int calculateNumLabels(long m, long n) {
+		long diff = n - m;
+		for (int l = 8; l >= 3; l--) {
+			if (diff % (l - 1) == 0)
+			{
+				return l;
+			}
+		}
+		return 0;
+	}
+}
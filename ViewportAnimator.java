@@ -0,0 +1,193 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import android.content.Context;
+import android.view.animation.AnimationUtils;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.widget.Scroller;
+
+/**
+ * drives the kinetic fling and the animated zoom of the viewport. The
+ * animator only calculates the viewport of the current frame, it is up to the
+ * GraphView to apply it.
+ */
+final class ViewportAnimator {
+	private static final int MODE_NONE = 0;
+	private static final int MODE_FLING = 1;
+	private static final int MODE_ZOOM = 2;
+
+	private static final int ZOOM_DURATION = 250;
+
+	private final Scroller scroller;
+	private final Interpolator interpolator = new DecelerateInterpolator(1.5f);
+	private int mode = MODE_NONE;
+
+	// fling: the scroller works in pixels relative to flingOrigin
+	private double flingOrigin;
+	private double flingUnitsPerPixel;
+
+	// zoom
+	private double fromStart, fromSize, toStart, toSize;
+	private long zoomStartTime;
+
+	private double currentStart, currentSize;
+
+	ViewportAnimator(Context context) {
+		scroller = new Scroller(context);
+	}
+
+	/**
+	 * starts a fling of the viewport
+	 *
+	 * @param start
+	 *            current viewport start
+	 * @param size
+	 *            current viewport size
+	 * @param graphwidth
+	 *            width of the graph in pixels
+	 * @param velocityX
+	 *            velocity of the finger in pixels per second
+	 * @param minX
+	 *            smallest x value the viewport may show
+	 * @param maxX
+	 *            largest x value the viewport may show
+	 */
+	void fling(double start, double size, float graphwidth, float velocityX,
+			double minX, double maxX) {
+		abort();
+		flingOrigin = start;
+		flingUnitsPerPixel = size / graphwidth;
+		int minPx = toPixels(minX - start);
+		int maxPx = toPixels(maxX - size - start);
+		// moving the finger to the right moves the viewport to the left
+		scroller.fling(0, 0, (int) -velocityX, 0, Math.min(minPx, 0),
+				Math.max(maxPx, 0), 0, 0);
+		currentStart = start;
+		currentSize = size;
+		mode = MODE_FLING;
+	}
+
+	/**
+	 * starts an animated transition from one viewport to another
+	 */
+	void zoomTo(double fromStart, double fromSize, double toStart,
+			double toSize) {
+		abort();
+		this.fromStart = fromStart;
+		this.fromSize = fromSize;
+		this.toStart = toStart;
+		this.toSize = toSize;
+		zoomStartTime = AnimationUtils.currentAnimationTimeMillis();
+		currentStart = fromStart;
+		currentSize = fromSize;
+		mode = MODE_ZOOM;
+	}
+
+	/**
+	 * calculates the viewport of the current frame
+	 *
+	 * @return true if the viewport changed, false if nothing is animating
+	 */
+	boolean computeFrame() {
+		switch (mode) {
+		case MODE_FLING:
+			if (!scroller.computeScrollOffset()) {
+				mode = MODE_NONE;
+			}
+			currentStart = flingOrigin + scroller.getCurrX()
+					* flingUnitsPerPixel;
+			return true;
+		case MODE_ZOOM:
+			float t = (float) (AnimationUtils.currentAnimationTimeMillis() - zoomStartTime)
+					/ ZOOM_DURATION;
+			if (t >= 1) {
+				t = 1;
+				mode = MODE_NONE;
+			}
+			float f = interpolator.getInterpolation(t);
+			currentStart = fromStart + (toStart - fromStart) * f;
+			currentSize = fromSize + (toSize - fromSize) * f;
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * stops the running animation. The viewport stays at the last computed
+	 * frame.
+	 */
+	void abort() {
+		if (mode == MODE_FLING) {
+			scroller.forceFinished(true);
+		}
+		mode = MODE_NONE;
+	}
+
+	boolean isRunning() {
+		return mode != MODE_NONE;
+	}
+
+	double getCurrentStart() {
+		return currentStart;
+	}
+
+	double getCurrentSize() {
+		return currentSize;
+	}
+
+	/**
+	 * @return the smallest viewport start the running animation will reach
+	 */
+	double getRangeStart() {
+		if (mode == MODE_FLING) {
+			return Math.min(currentStart, flingOrigin + scroller.getFinalX()
+					* flingUnitsPerPixel);
+		}
+		return Math.min(fromStart, toStart);
+	}
+
+	/**
+	 * @return the largest viewport end the running animation will reach
+	 */
+	double getRangeEnd() {
+		if (mode == MODE_FLING) {
+			return Math.max(currentStart, flingOrigin + scroller.getFinalX()
+					* flingUnitsPerPixel)
+					+ currentSize;
+		}
+		return Math.max(fromStart + fromSize, toStart + toSize);
+	}
+
+	private int toPixels(double units) {
+		double px = units / flingUnitsPerPixel;
+		if (px > Integer.MAX_VALUE / 2) {
+			return Integer.MAX_VALUE / 2;
+		} else if (px < Integer.MIN_VALUE / 2) {
+			return Integer.MIN_VALUE / 2;
+		}
+		return (int) px;
+	}
+}
@@ -0,0 +1,202 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * links the viewports of several GraphViews sharing the same x axis. A pan or
+ * zoom on one of the graphs is applied to all graphs of the group, and the
+ * horizontal labels are generated once and shared by the whole group.
+ *
+ * All graphs of a group should use the same label formatter, otherwise the
+ * labels of the graph that generated them first are shown.
+ */
+public class ViewportGroup {
+	private final List<GraphView> graphViews = new ArrayList<GraphView>();
+	private boolean propagating;
+
+	// shared horizontal labels
+	private String[] horlabels;
+	private double labelsViewportStart;
+	private double labelsViewportSize;
+	private int numHorizontalLabels;
+	private int numVerticalLabels;
+
+	/**
+	 * adds a graph to the group. The graph takes over the viewport of the
+	 * group.
+	 *
+	 * @param graphView
+	 */
+	public void addGraphView(GraphView graphView) {
+		if (graphViews.contains(graphView)) {
+			return;
+		}
+		if (!graphViews.isEmpty()) {
+			GraphView first = graphViews.get(0);
+			graphView.setViewPort(first.getViewportStart(),
+					first.getViewportSize());
+		}
+		graphViews.add(graphView);
+		graphView.setViewportGroup(this);
+	}
+
+	/**
+	 * @param graphView
+	 *            graph to remove from the group
+	 */
+	public void removeGraphView(GraphView graphView) {
+		if (graphViews.remove(graphView)) {
+			graphView.setViewportGroup(null);
+		}
+	}
+
+	public List<GraphView> getGraphViews() {
+		return graphViews;
+	}
+
+	/**
+	 * sets the viewport of all graphs of the group
+	 *
+	 * @param start
+	 * @param size
+	 */
+	public void setViewPort(double start, double size) {
+		if (!graphViews.isEmpty()) {
+			// propagated to the other graphs
+			graphViews.get(0).getContentView().onMoveGesture(start,
+					start + size);
+		}
+	}
+
+	void setViewPort(GraphView source, double start, double size) {
+		if (propagating) {
+			return;
+		}
+		propagating = true;
+		try {
+			for (GraphView g : graphViews) {
+				if (g != source) {
+					g.setViewPort(start, size);
+				}
+			}
+		} finally {
+			propagating = false;
+		}
+	}
+
+	void onMoveGesture(GraphView source, double vpStart, double vpEnd) {
+		if (propagating) {
+			return;
+		}
+		propagating = true;
+		try {
+			for (GraphView g : graphViews) {
+				if (g != source) {
+					g.getContentView().onMoveGesture(vpStart, vpEnd);
+				}
+			}
+		} finally {
+			propagating = false;
+		}
+	}
+
+	void beginViewportAnimation(GraphView source, double rangeStart,
+			double rangeEnd) {
+		if (propagating) {
+			return;
+		}
+		propagating = true;
+		try {
+			for (GraphView g : graphViews) {
+				if (g != source) {
+					g.beginViewportAnimation(rangeStart, rangeEnd);
+				}
+			}
+		} finally {
+			propagating = false;
+		}
+	}
+
+	void applyViewportAnimationFrame(GraphView source, double start,
+			double size) {
+		if (propagating) {
+			return;
+		}
+		propagating = true;
+		try {
+			for (GraphView g : graphViews) {
+				if (g != source) {
+					g.applyViewportAnimationFrame(start, size);
+				}
+			}
+		} finally {
+			propagating = false;
+		}
+	}
+
+	void endViewportAnimation(GraphView source) {
+		if (propagating) {
+			return;
+		}
+		propagating = true;
+		try {
+			for (GraphView g : graphViews) {
+				if (g != source) {
+					g.endViewportAnimation();
+				}
+			}
+		} finally {
+			propagating = false;
+		}
+	}
+
+	/**
+	 * returns the horizontal labels for the current viewport. They are only
+	 * generated by the first graph of the group asking for them, the others
+	 * reuse them.
+	 */
+	String[] getHorlabels(GraphView graphView) {
+		if (horlabels == null
+				|| labelsViewportStart != graphView.getViewportStart()
+				|| labelsViewportSize != graphView.getViewportSize()) {
+			// generating the labels snaps the viewport, which is propagated
+			// to the whole group
+			horlabels = graphView.computeHorlabels();
+			labelsViewportStart = graphView.getViewportStart();
+			labelsViewportSize = graphView.getViewportSize();
+			numHorizontalLabels = graphView.getGraphViewStyle()
+					.getNumHorizontalLabels();
+			numVerticalLabels = graphView.getGraphViewStyle()
+					.getNumVerticalLabels();
+		} else {
+			graphView.getGraphViewStyle().setNumHorizontalLabels(
+					numHorizontalLabels);
+			graphView.getGraphViewStyle()
+					.setNumVerticalLabels(numVerticalLabels);
+		}
+		return horlabels;
+	}
+}
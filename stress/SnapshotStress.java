@@ -0,0 +1,456 @@
+/**
+ * This file is part of GraphView.
+ *
+ * GraphView is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GraphView is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GraphView.  If not, see <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ * Copyright Jonas Gehring
+ *
+ * Modified by:
+ * Copyright © 2015 ZOHO Corporation.
+ */
+
+package com.jjoe64.graphview;
+
+import java.lang.reflect.Method;
+import java.util.Random;
+
+/**
+ * stress run of the data side of the graphs with large synthetic series. It
+ * needs no device: it drives the snapshots and the codec, and per frame the
+ * {@link FrameCache} a graph draws through. It is not part of the library,
+ * build it against the library sources and run it on a desktop VM with
+ * enough heap for the largest series, e.g.
+ *
+ * <pre>
+ * javac -cp android.jar -d out *.java stress/SnapshotStress.java
+ * java -Xmx2g -cp out com.jjoe64.graphview.SnapshotStress [values]
+ * </pre>
+ *
+ * First a chart as most apps draw it, three series of a few thousand values,
+ * is panned: once its caches are filled its frames must allocate next to
+ * nothing. Then the series are regular, bursty, gappy and a large regular
+ * one of 10M values (or the given number). Each is added in batches, swept
+ * through at a fixed zoom, zoomed in and out, streamed to with scroll to end
+ * and saved and restored. A bound that is exceeded fails the run with an AssertionError:
+ * the retained bytes per value, the average time of a frame's data work and
+ * the bytes allocated per frame (where the VM can count them).
+ *
+ * The drawing itself needs a device, check it there with
+ * {@link GraphView#getFrameStats()} and {@link GraphView#getRetainedBytes()}.
+ */
+final class SnapshotStress {
+	/**
+	 * width of the emulated graph in pixels
+	 */
+	private static final int WIDTH = 1080;
+
+	// bounds, with room for the capacity the columns grow by
+	private static final double MAX_ARRAY_BYTES_PER_VALUE = 25;
+	private static final double MAX_COMPACT_BYTES_PER_VALUE = 13;
+	// noisy y values need most of their bits
+	private static final double MAX_COMPRESSED_BYTES_PER_VALUE = 10;
+	private static final long MAX_FRAME_NANOS = 8 * 1000 * 1000;
+	// averages, including the rebuilt rollups and decimated copies
+	private static final long MAX_FRAME_ALLOCATION = 256 * 1024;
+	// new data, the rollup and the decimated copy are updated every frame
+	private static final long MAX_STREAM_FRAME_ALLOCATION = 512 * 1024;
+
+	// a chart as most apps draw it reuses everything between frames, a
+	// panned frame only caches the y bounds of its slice, 40 bytes
+	private static final long MAX_CANONICAL_FRAME_ALLOCATION = 64;
+
+	private static final int FRAMES = 2000;
+	private static final int STREAM_BATCH = 100;
+
+	private static Object threadBean;
+	private static Method allocatedBytes;
+	private static boolean allocationsUnknown;
+	// bytes the allocation counter allocates itself
+	private static long counterAllocation;
+
+	/**
+	 * the per-frame data work of a graph with one series, with rollups
+	 * enabled and decimated render quality
+	 */
+	private static final class Frames {
+		private final long maxAllocation;
+		private final boolean rollups;
+		private final FrameCache cache = new FrameCache();
+		private float[] points = new float[0];
+		private int count;
+		private long nanos;
+		private long allocated;
+		// keeps the results alive, so that nothing is optimized away
+		double checksum;
+
+		Frames(long maxAllocation) {
+			this(maxAllocation, true);
+		}
+
+		Frames(long maxAllocation, boolean rollups) {
+			this.rollups = rollups;
+			this.maxAllocation = maxAllocation;
+		}
+
+		void draw(SeriesSnapshot data, double fromX, double toX) {
+			long allocStart = allocatedBytes();
+			long start = System.nanoTime();
+			double viewportSize = toX - fromX;
+			SeriesSnapshot drawn = rollups ? cache.rollUp(data, fromX,
+					viewportSize, WIDTH) : data;
+			drawn = cache.decimate(drawn, FrameCache.sliceStart(drawn, fromX),
+					FrameCache.sliceEnd(drawn, toX), viewportSize / WIDTH,
+					WIDTH);
+			int from = cache.sliceFrom;
+			int to = cache.sliceTo;
+			if (to > from) {
+				drawn.prepare(from, to);
+				double minY = drawn.getMinY(from, to);
+				double maxY = drawn.getMaxY(from, to);
+				if (points.length < 2 * (to - from)) {
+					points = new float[2 * (to - from)];
+				}
+				drawn.project(from, to, fromX, WIDTH / viewportSize, 0, minY,
+						WIDTH / Math.max(maxY - minY, 1e-9), 0, points, 0);
+				checksum += points[2 * (to - from) - 1] + minY + maxY;
+			}
+			nanos += System.nanoTime() - start;
+			if (allocStart >= 0) {
+				allocated += allocatedBytes() - allocStart - counterAllocation;
+			}
+			count++;
+		}
+
+		/**
+		 * forgets the frames drawn so far, e.g. the first ones that fill
+		 * the caches
+		 */
+		void discard() {
+			nanos = 0;
+			allocated = 0;
+			count = 0;
+		}
+
+		void check(String scenario) {
+			long average = nanos / Math.max(1, count);
+			System.out.println(scenario + ": " + count + " frames, " //NO I18N
+					+ average / 1000 + " us/frame" //NO I18N
+					+ (allocated > 0 ? ", " + allocated / count //NO I18N
+							+ " bytes/frame" : "")); //NO I18N
+			if (average > MAX_FRAME_NANOS) {
+				throw new AssertionError(scenario + ": " + average //NO I18N
+						+ " ns per frame"); //NO I18N
+			}
+			if (allocated / Math.max(1, count) > maxAllocation) {
+				throw new AssertionError(scenario + ": " + allocated / count //NO I18N
+						+ " bytes allocated per frame"); //NO I18N
+			}
+			nanos = 0;
+			allocated = 0;
+			count = 0;
+		}
+	}
+
+	private SnapshotStress() {
+	}
+
+	public static void main(String[] args) {
+		int large = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		calibrate();
+		canonical();
+		run("regular", regular(1000000)); //NO I18N
+		run("bursty", bursty(1000000)); //NO I18N
+		run("gappy", gappy(1000000)); //NO I18N
+		run("large", regular(large)); //NO I18N
+		System.out.println("passed"); //NO I18N
+	}
+
+	/**
+	 * measures what reading the allocation counter allocates, so that it
+	 * isn't counted for the frames
+	 */
+	private static void calibrate() {
+		long least = Long.MAX_VALUE;
+		for (int i = 0; i < 1000; i++) {
+			long start = allocatedBytes();
+			long end = allocatedBytes();
+			if (start < 0) {
+				return;
+			}
+			least = Math.min(least, end - start);
+		}
+		counterAllocation = least;
+	}
+
+	/**
+	 * a line chart as most apps draw it: three series of a few thousand
+	 * plain values, no rollups, panned back and forth. Once the first frames
+	 * filled the caches its frames must not allocate.
+	 */
+	private static void canonical() {
+		for (int s = 0; s < 3; s++) {
+			double[][] values = regular(5000 + 1000 * s);
+			SeriesSnapshot data = ArraySeriesSnapshot.wrap(values[0],
+					values[1]);
+			Frames frames = new Frames(MAX_CANONICAL_FRAME_ALLOCATION,
+					false);
+			double first = data.getX(0);
+			double span = data.getX(data.size() - 1) - first;
+			double viewport = span / 10;
+			for (int f = 0; f < 2 * FRAMES; f++) {
+				if (f == FRAMES / 10) {
+					frames.discard();
+				}
+				double from = first + (span - viewport)
+						* Math.abs(Math.sin(f / 100.0));
+				frames.draw(data, from, from + viewport);
+			}
+			frames.check("canonical series " + s); //NO I18N
+		}
+	}
+
+	/**
+	 * ten values a second, a noisy sine. 10M values span about 12 days, so
+	 * they fit the compact storage.
+	 */
+	static double[][] regular(int n) {
+		double[] x = new double[n];
+		double[] y = new double[n];
+		Random random = new Random(n);
+		long t = 1420070400000L;
+		for (int i = 0; i < n; i++) {
+			x[i] = t + 100L * i;
+			y[i] = Math.sin(i / 3600.0) * 100 + random.nextGaussian();
+		}
+		return new double[][] { x, y };
+	}
+
+	/**
+	 * bursts of up to 2000 values a millisecond apart, with pauses of up to
+	 * an hour in between
+	 */
+	static double[][] bursty(int n) {
+		double[] x = new double[n];
+		double[] y = new double[n];
+		Random random = new Random(n);
+		long t = 1420070400000L;
+		int i = 0;
+		while (i < n) {
+			int burst = Math.min(n - i, 1 + random.nextInt(2000));
+			double level = random.nextGaussian() * 50;
+			for (int k = 0; k < burst; k++, i++) {
+				x[i] = t + k;
+				y[i] = level + random.nextGaussian() * 10;
+			}
+			t += burst + 1 + random.nextInt(3600 * 1000);
+		}
+		return new double[][] { x, y };
+	}
+
+	/**
+	 * like {@link #regular(int)}, with single gaps and runs of up to 500
+	 * gaps
+	 */
+	static double[][] gappy(int n) {
+		double[][] data = regular(n);
+		double[] y = data[1];
+		Random random = new Random(-n);
+		for (int i = 0; i < n; i++) {
+			if (random.nextInt(100) == 0) {
+				y[i] = Double.NaN;
+			} else if (random.nextInt(10000) == 0) {
+				int end = Math.min(n, i + random.nextInt(500));
+				for (; i < end; i++) {
+					y[i] = Double.NaN;
+				}
+			}
+		}
+		return data;
+	}
+
+	private static void run(String name, double[][] values) {
+		double[] x = values[0];
+		double[] y = values[1];
+		int n = x.length;
+
+		// the series is added in batches, as a loader would
+		SeriesSnapshot array = ArraySeriesSnapshot.EMPTY;
+		SeriesSnapshot compact = CompactSeriesSnapshot.empty((long) x[0]);
+		for (int i = 0; i < n; i += 65536) {
+			int count = Math.min(65536, n - i);
+			array = array.appendAll(x, y, i, count);
+			compact = compact.appendAll(x, y, i, count);
+		}
+		SeriesSnapshot compressed = CompressedSeriesSnapshot.copyOf(array);
+		checkRetained(name + " array", array, MAX_ARRAY_BYTES_PER_VALUE); //NO I18N
+		checkRetained(name + " compact", compact, //NO I18N
+				MAX_COMPACT_BYTES_PER_VALUE);
+		checkRetained(name + " compressed", compressed, //NO I18N
+				MAX_COMPRESSED_BYTES_PER_VALUE);
+		checkSame(name + " compressed", array, compressed); //NO I18N
+
+		SeriesSnapshot[] storages = { array, compact, compressed };
+		String[] storageNames = { "array", "compact", "compressed" }; //NO I18N
+		for (int s = 0; s < storages.length; s++) {
+			SeriesSnapshot data = storages[s];
+			String scenario = name + " " + storageNames[s]; //NO I18N
+			sweep(scenario, data);
+			zoom(scenario, data);
+			restore(scenario, data);
+		}
+		stream(name, x, y);
+	}
+
+	/**
+	 * pans through the data at a zoom of 1% of the x range
+	 */
+	private static void sweep(String scenario, SeriesSnapshot data) {
+		Frames frames = new Frames(MAX_FRAME_ALLOCATION);
+		double first = data.getX(0);
+		double span = data.getX(data.size() - 1) - first;
+		double viewport = span / 100;
+		for (int f = 0; f < FRAMES; f++) {
+			double from = first + (span - viewport) * f / FRAMES;
+			frames.draw(data, from, from + viewport);
+		}
+		frames.check(scenario + " sweep"); //NO I18N
+	}
+
+	/**
+	 * zooms from all data to a few hundred values and back
+	 */
+	private static void zoom(String scenario, SeriesSnapshot data) {
+		Frames frames = new Frames(MAX_FRAME_ALLOCATION);
+		double first = data.getX(0);
+		double span = data.getX(data.size() - 1) - first;
+		double center = first + span / 2;
+		double smallest = span * 500 / data.size();
+		double viewport = span;
+		double factor = 0.9;
+		for (int f = 0; f < FRAMES; f++) {
+			frames.draw(data, center - viewport / 2, center + viewport / 2);
+			viewport *= factor;
+			if (viewport < smallest || viewport > span) {
+				factor = 1 / factor;
+			}
+		}
+		frames.check(scenario + " zoom"); //NO I18N
+	}
+
+	/**
+	 * saves and restores the data, the type of storage must be kept
+	 */
+	private static void restore(String scenario, SeriesSnapshot data) {
+		byte[] saved = SnapshotCodec.encode(data);
+		SeriesSnapshot restored = SnapshotCodec.decode(saved);
+		if (restored.getClass() != data.getClass()) {
+			throw new AssertionError(scenario + ": restored as " //NO I18N
+					+ restored.getClass().getSimpleName());
+		}
+		checkSame(scenario + " restore", data, restored); //NO I18N
+		System.out.println(scenario + " restore: " + saved.length //NO I18N
+				/ Math.max(1, data.size()) + " bytes/value saved"); //NO I18N
+	}
+
+	/**
+	 * appends the values in batches to a series limited to a tenth of them,
+	 * scrolled to the end
+	 */
+	private static void stream(String name, double[] x, double[] y) {
+		int n = x.length;
+		int maxDataCount = Math.max(STREAM_BATCH, n / 10);
+		int start = Math.max(0, n - FRAMES * STREAM_BATCH);
+		SeriesSnapshot[] storages = {
+				ArraySeriesSnapshot.EMPTY.appendAll(x, y, 0, start),
+				CompactSeriesSnapshot.empty((long) x[0]).appendAll(x, y, 0,
+						start),
+				CompressedSeriesSnapshot.EMPTY.appendAll(x, y, 0, start) };
+		String[] storageNames = { "array", "compact", "compressed" }; //NO I18N
+		double[] limits = { MAX_ARRAY_BYTES_PER_VALUE,
+				MAX_COMPACT_BYTES_PER_VALUE, MAX_COMPRESSED_BYTES_PER_VALUE };
+		for (int s = 0; s < storages.length; s++) {
+			SeriesSnapshot data = storages[s];
+			if (data.size() > maxDataCount) {
+				data = data.removeFirst(data.size() - maxDataCount);
+			}
+			Frames frames = new Frames(MAX_STREAM_FRAME_ALLOCATION);
+			for (int i = start; i < n; i += STREAM_BATCH) {
+				data = data.appendAll(x, y, i, Math.min(STREAM_BATCH, n - i));
+				if (data.size() > maxDataCount) {
+					data = data.removeFirst(data.size() - maxDataCount);
+				}
+				double last = data.getX(data.size() - 1);
+				double viewport = (last - data.getX(0)) / 10;
+				frames.draw(data, last - viewport, last);
+			}
+			String scenario = name + " " + storageNames[s] + " stream"; //NO I18N
+			frames.check(scenario);
+			checkRetained(scenario, data, limits[s]);
+		}
+	}
+
+	private static void checkRetained(String scenario, SeriesSnapshot data,
+			double maxBytesPerValue) {
+		double perValue = (double) data.getRetainedBytes()
+				/ Math.max(1, data.size());
+		System.out.println(scenario + ": " + data.size() + " values, " //NO I18N
+				+ Math.round(perValue * 10) / 10.0 + " bytes/value"); //NO I18N
+		if (perValue > maxBytesPerValue) {
+			throw new AssertionError(scenario + ": " + perValue //NO I18N
+					+ " bytes per value retained"); //NO I18N
+		}
+	}
+
+	private static void checkSame(String scenario, SeriesSnapshot expected,
+			SeriesSnapshot actual) {
+		if (expected.size() != actual.size()) {
+			throw new AssertionError(scenario + ": " + actual.size() //NO I18N
+					+ " values instead of " + expected.size()); //NO I18N
+		}
+		int step = Math.max(1, expected.size() / 100000);
+		for (int i = 0; i < expected.size(); i += step) {
+			if (expected.getX(i) != actual.getX(i)
+					|| Double.compare(expected.getY(i), actual.getY(i)) != 0) {
+				throw new AssertionError(scenario + ": value " + i //NO I18N
+						+ " differs"); //NO I18N
+			}
+		}
+	}
+
+	/**
+	 * @return bytes allocated by the current thread so far, or -1 if the VM
+	 *         can't tell. On a device count the allocations of the frames
+	 *         with {@link GraphView#setAllocationCounting(boolean)}.
+	 */
+	static long allocatedBytes() {
+		if (allocationsUnknown) {
+			return -1;
+		}
+		try {
+			if (allocatedBytes == null) {
+				threadBean = Class.forName(
+						"java.lang.management.ManagementFactory") //NO I18N
+						.getMethod("getThreadMXBean").invoke(null); //NO I18N
+				allocatedBytes = Class.forName(
+						"com.sun.management.ThreadMXBean").getMethod( //NO I18N
+						"getThreadAllocatedBytes", long.class); //NO I18N
+			}
+			return (Long) allocatedBytes.invoke(threadBean, Thread
+					.currentThread().getId());
+		} catch (Exception e) {
+			allocationsUnknown = true;
+			return -1;
+		}
+	}
+}